@@ -93,6 +93,7 @@ dependencies {
 
     // For creating the list
     implementation(libs.androidx.recyclerview)
+    implementation(libs.androidx.swiperefreshlayout)
 
     // Room Database
     implementation(libs.androidx.room.runtime)
@@ -104,4 +105,10 @@ dependencies {
 
     // Optional but recommended: OkHttp for HTTP-level caching
     implementation(libs.okhttp)
+
+    // Document start scripts for the player WebView
+    implementation(libs.androidx.webkit)
+
+    // Trace sections for system traces (Perfetto)
+    implementation(libs.androidx.tracing)
 }
@@ -0,0 +1,382 @@
+// Player control script for the m.youtube.com watch page.
+// WebViewPool registers it to run at document start, before the page's own scripts.
+// Every function re-queries the 'video' element, because the player replaces it at will.
+// Whole-line comments and indentation are stripped when the asset is loaded.
+
+// Helper to bypass TrustedHTML restrictions
+function getTrustedHTML(html) {
+    if (window.trustedTypes && window.trustedTypes.createPolicy) {
+        const policy = window.trustedTypes.defaultPolicy ||
+                       window.trustedTypes.createPolicy('web-view-injection', {
+                           createHTML: (s) => s
+                       });
+        return policy.createHTML(html);
+    }
+    return html;
+}
+
+window.ensureVideoMaximized = function() {
+    if (document.querySelector('#full-screen-player-style'))
+        return;
+
+    var style = document.createElement('style');
+    style.id = 'full-screen-player-style';
+    style.type = 'text/css';
+    const css = `
+        /* Make the body and html black, and hide overflow */
+        html, body {
+            background-color: black !important;
+            overflow: hidden !important;
+            height: 100% !important;
+        }
+        /* Hide every element on the page by default */
+        body > * {
+            display: none !important;
+        }
+        /* Specifically un-hide the player container and its parents */
+        ytm-watch, ytm-player, #player-container-id, #player {
+            display: block !important;
+        }
+        #header-bar {
+            display: none !important;
+        }
+
+        /* Force the player and its containers to fill the entire viewport */
+        ytm-watch, ytm-player, #player-container-id, #player, .html5-video-player {
+            position: fixed !important;
+            top: 0 !important;
+            left: 0 !important;
+            width: 100vw !important; /* Viewport Width */
+            height: 100vh !important; /* Viewport Height */
+            z-index: 9999 !important;
+            margin: 0 !important;
+            padding: 0 !important;
+        }
+    `;
+    style.innerHTML = getTrustedHTML(css);
+    document.head.appendChild(style);
+}
+
+// --- Player Control Functions ---
+window.togglePlayPause = function() {
+    const video = document.querySelector('video');
+    if (video) {
+        video.muted = false;
+        if (video.paused) { video.play(); } else { video.pause(); }
+        return true;
+    }
+    return false;
+};
+
+window.seekTo = function(seconds) {
+    const video = document.querySelector('video');
+    if (video) {
+        video.currentTime = seconds;
+        return true;
+    }
+    return false;
+};
+
+window.is_paused = function() {
+    const video = document.querySelector('video');
+    return video ? video.paused : true;
+};
+
+// --- Playback Hooks ---
+// Attached once per <video> element and driven by its media events:
+//  - unmutes the video as soon as it has metadata or starts playing,
+//  - corrects the start position once, when metadata is known,
+//  - stops at the end instead of letting YouTube autoplay the next video,
+//  - reports the media events the player measures playback quality from.
+// Each step reports to AndroidBridge when it has succeeded.
+window.attachPlaybackHooks = function(restoreSeconds) {
+    window.pendingRestoreSeconds = restoreSeconds;
+    const video = document.querySelector('video');
+    if (video) {
+        window.hookVideo(video);
+        return true;
+    }
+    // The player creates its <video> element late; attach as soon as it appears.
+    if (!window.videoWaitObserver) {
+        window.videoWaitObserver = new MutationObserver(() => {
+            const found = document.querySelector('video');
+            if (found) {
+                window.videoWaitObserver.disconnect();
+                window.videoWaitObserver = null;
+                window.hookVideo(found);
+                window.setupProgressUpdater();
+            }
+        });
+        window.videoWaitObserver.observe(document.documentElement, { childList: true, subtree: true });
+    }
+    return false;
+};
+
+window.hookVideo = function(video) {
+    const onReady = () => {
+        if (video.muted) {
+            window.reportMediaEvent('unmute_attempt', Date.now());
+            video.muted = false;
+        }
+        if (!video.muted && !video.unmuteReported) {
+            video.unmuteReported = true;
+            if (typeof AndroidBridge !== 'undefined') AndroidBridge.onUnmuted();
+        }
+        window.applyMaxQuality();
+        const seconds = window.pendingRestoreSeconds;
+        if (seconds >= 0 && video.readyState >= 1) {
+            window.pendingRestoreSeconds = -1;
+            // The watch URL already asked for this position; seek only if the player missed it,
+            // since every seek starts buffering again.
+            if (Math.abs(video.currentTime - seconds) > 2) {
+                video.currentTime = seconds;
+            }
+            if (typeof AndroidBridge !== 'undefined') AndroidBridge.onPositionRestored(seconds);
+        }
+    };
+
+    const handleVideoEnd = () => {
+        console.log("Custom End Detection: Stopping video and canceling autoplay.");
+        video.pause();
+        video.currentTime = 0.0;
+        window.pushPlayerState(video);
+        if (typeof AndroidBridge !== 'undefined') AndroidBridge.onAutoplayCancelled();
+    };
+
+    if (!video.playbackHooksAttached) {
+        video.playbackHooksAttached = true;
+        video.addEventListener('loadedmetadata', onReady);
+        video.addEventListener('playing', onReady);
+        video.addEventListener('ended', handleVideoEnd);
+        // Event times are wall clock milliseconds, comparable with the app's own clock.
+        const report = (event) => window.reportMediaEvent(event.type,
+            Math.round(performance.timeOrigin + event.timeStamp));
+        video.addEventListener('playing', report);
+        video.addEventListener('error', report);
+        // Buffering after a seek is expected and not counted as a stall.
+        const reportStall = (event) => { if (!video.seeking) report(event); };
+        video.addEventListener('waiting', reportStall);
+        video.addEventListener('stalled', reportStall);
+        // YouTube starts the next video from its own 'ended' handler, so stop just before it.
+        video.addEventListener('timeupdate', () => {
+            if (video.currentTime > 0 && video.currentTime >= video.duration - 0.05 && !video.paused) {
+                handleVideoEnd();
+            }
+        });
+    }
+    // The events may already have fired before the hooks were attached.
+    if (video.readyState >= 1) {
+        onReady();
+    }
+};
+
+window.reportMediaEvent = function(type, timeMillis) {
+    if (typeof AndroidBridge !== 'undefined') AndroidBridge.onMediaEvent(type, timeMillis);
+};
+
+// --- Quality Cap ---
+// Limits the quality the player picks to the given frame height, 0 for no limit.
+// The player forgets the range whenever it loads a video, so hookVideo applies it again.
+window.setMaxQuality = function(height) {
+    window.maxQualityHeight = height;
+    return window.applyMaxQuality();
+};
+
+window.applyMaxQuality = function() {
+    const player = document.querySelector('#movie_player');
+    if (!player || typeof player.setPlaybackQualityRange !== 'function') {
+        return false;
+    }
+    const height = window.maxQualityHeight;
+    if (height === undefined) {
+        // Not set by the app yet; leave the player's choice alone.
+        return false;
+    }
+    if (!height) {
+        player.setPlaybackQualityRange('auto', 'auto');
+        return true;
+    }
+    const labels = [
+        [144, 'tiny'], [240, 'small'], [360, 'medium'], [480, 'large'],
+        [720, 'hd720'], [1080, 'hd1080'], [1440, 'hd1440'], [2160, 'hd2160']
+    ];
+    let label = labels[0][1];
+    for (const [labelHeight, name] of labels) {
+        if (labelHeight <= height) label = name;
+    }
+    // The minimum stays open, so the player can still drop lower on a bad connection.
+    player.setPlaybackQualityRange('tiny', label);
+    return true;
+};
+
+// --- Soft Reload ---
+// Restarts the current video inside the existing player at the given position, without
+// navigating. Returns false if the player API is not available, so the caller can fall back
+// to reloading the page. AndroidBridge.onSoftReloaded() is called once playback resumes.
+window.softReload = function(seconds) {
+    const player = document.querySelector('#movie_player');
+    const videoId = new URLSearchParams(window.location.search).get('v');
+    if (!player || typeof player.loadVideoById !== 'function' || !videoId) {
+        return false;
+    }
+    // Media events do not bubble, but they can be caught on the way down. The player may
+    // also swap in a new <video> element, which needs the hooks again.
+    document.addEventListener('playing', (event) => {
+        window.hookVideo(event.target);
+        window.setupProgressUpdater();
+        if (typeof AndroidBridge !== 'undefined') AndroidBridge.onSoftReloaded();
+    }, { capture: true, once: true });
+    window.pendingRestoreSeconds = -1;
+    player.loadVideoById(videoId, seconds);
+    return true;
+};
+
+// Returns the skip-ad button as "left,top,width,height" in device pixels.
+window.getSkipAdRectangle = function() {
+    var skipBtn = document.querySelector('BUTTON.ytp-ad-skip-button-modern');
+    if (skipBtn) {
+        const rect = skipBtn.getBoundingClientRect();
+        const dpr = window.devicePixelRatio || 1;
+        return Math.round(rect.left * dpr) + ',' + Math.round(rect.top * dpr) + ',' +
+            Math.round(rect.width * dpr) + ',' + Math.round(rect.height * dpr);
+    }
+    return '0,0,0,0';
+};
+
+// --- Change-only State Reporting ---
+// Sends AndroidBridge one compact message, and only for the fields that changed
+// since the last one. See JsBridge for the format.
+window.lastPlayerState = window.lastPlayerState || {};
+window.pushPlayerState = function(video) {
+    if (typeof AndroidBridge === 'undefined') return;
+    const next = {
+        t: Math.floor(video.currentTime || 0),
+        p: video.paused ? 1 : 0,
+        d: isFinite(video.duration) ? Math.floor(video.duration) : 0,
+        v: new URLSearchParams(window.location.search).get('v') || ''
+    };
+    const last = window.lastPlayerState;
+    let message = '';
+    for (const key in next) {
+        if (next[key] !== last[key]) {
+            message += (message ? '|' : '') + key + ':' + next[key];
+            last[key] = next[key];
+        }
+    }
+    if (message) {
+        AndroidBridge.onPlayerState(message);
+    }
+};
+
+// --- Skip-ad Button Tracking ---
+// The skip button is looked up only when the player DOM or its size changes, and its
+// rectangle is sent as "a:" only when the button appears, moves or disappears.
+window.pushSkipAdRectangle = function() {
+    if (typeof AndroidBridge === 'undefined') return;
+    const rect = window.getSkipAdRectangle();
+    if (rect !== window.lastPlayerState.a) {
+        window.lastPlayerState.a = rect;
+        AndroidBridge.onPlayerState('a:' + rect);
+    }
+};
+
+window.watchSkipAdButton = function() {
+    if (window.skipAdObserver) return;
+
+    let scheduled = false;
+    let observedButton = null;
+    let observedPlayer = null;
+    let observing = false;
+    const resizeObserver = new ResizeObserver(() => schedule());
+    // Only the player's subtree, and no 'style': the progress bar and overlays change styles
+    // many times a second while playing. A button shown by a style change is caught by the
+    // resize observer, as it goes from zero size to its real one.
+    const watchPlayer = () => {
+        const player = document.querySelector('#movie_player, .html5-video-player');
+        // Without a player the body fallback is installed once, on the first call.
+        if (observing && player === observedPlayer) return;
+        window.skipAdObserver.disconnect();
+        if (player) {
+            window.skipAdObserver.observe(player, {
+                childList: true,
+                subtree: true,
+                attributes: true,
+                attributeFilter: ['class', 'hidden']
+            });
+        } else {
+            // Until the player exists, only wait for it to be added.
+            window.skipAdObserver.observe(document.body, { childList: true, subtree: true });
+        }
+        observedPlayer = player;
+        observing = true;
+    };
+    const check = () => {
+        scheduled = false;
+        if (!observedPlayer || !observedPlayer.isConnected) watchPlayer();
+        const button = document.querySelector('BUTTON.ytp-ad-skip-button-modern');
+        if (button !== observedButton) {
+            if (observedButton) resizeObserver.unobserve(observedButton);
+            if (button) resizeObserver.observe(button);
+            observedButton = button;
+        }
+        window.pushSkipAdRectangle();
+    };
+    // Mutations come in bursts while an ad loads; look at the page once per frame at most.
+    const schedule = () => {
+        if (!scheduled) {
+            scheduled = true;
+            requestAnimationFrame(check);
+        }
+    };
+
+    window.skipAdObserver = new MutationObserver(schedule);
+    // The button also moves when the player itself is resized, e.g. on rotation.
+    resizeObserver.observe(document.documentElement);
+    check();
+};
+
+// This part still needs to find the video initially, but it's less critical if it fails.
+// The core controls will still work.
+window.setupProgressUpdater = function() {
+    const video = document.querySelector('video');
+    if (video && !video.progressUpdaterAttached) {
+        video.progressUpdaterAttached = true;
+        const progressUpdater = () => window.pushPlayerState(video);
+        video.addEventListener('timeupdate', progressUpdater);
+        video.addEventListener('pause', progressUpdater);
+        video.addEventListener('play', progressUpdater);
+        video.addEventListener('durationchange', progressUpdater);
+        progressUpdater();
+    }
+}
+
+// --- DOM Dump Function ---
+window.dumpDOM = function() {
+    function traverse(element, depth, dump) {
+        if (!element) return;
+
+        const indent = '  '.repeat(depth);
+        const tagName = element.tagName.toLowerCase();
+        const id = element.id ? `#${element.id}` : '';
+        const classes = Array.from(element.classList);
+        const class1 = classes.length > 0 ? `.${classes[0]}` : '.';
+        const class2 = classes.length > 1 ? `.${classes[1]}` : '.';
+        const classStr = `${class1}, ${class2}`;
+        const text = element.textContent ? `: ${element.textContent.trim().substring(0, 20)}` : '';
+
+        dump.push(`${indent}${tagName}, ${classStr}, ${id}, ${text}`);
+
+        Array.from(element.children).forEach(child => traverse(child, depth + 1, dump));
+    }
+
+    const dumpResult = [];
+    traverse(document.documentElement, 0, dumpResult);
+    const resultString = dumpResult.join('\n');
+
+    if (typeof AndroidBridge !== 'undefined') {
+        AndroidBridge.onDomDump(resultString);
+    } else {
+        console.log(resultString);
+    }
+    return true;
+};
@@ -0,0 +1,259 @@
+package com.channelplayer;
+
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The app's background threads. Components submit work to one of a few lanes instead of
+ * creating executors of their own, so the number of threads stays the same however many
+ * screens and ViewModels exist, and nothing needs shutting down when they go away.
+ *
+ * Each lane has a fixed number of threads, which exit when idle, and a bounded queue ordered
+ * by Priority, then by submission order. A task submitted to a full lane is counted and
+ * dropped by execute(), or rejected with RejectedExecutionException by executor(), so a
+ * CompletableFuture waiting on it fails instead of never completing. A task that throws is
+ * logged and counted; the exception does not reach the thread, which would crash the app.
+ * Components that rely on their tasks running one at a time, in order, use serialExecutor().
+ * Per-lane counters go into the Diagnostics export, see describe().
+ */
+public final class AppScheduler {
+    private static final String TAG = "AppScheduler";
+
+    private static final long IDLE_TIMEOUT_SECONDS = 30;
+
+    public enum Lane {
+        /** Database and config file writes, one at a time. */
+        DB_WRITE(1, 512, Process.THREAD_PRIORITY_DEFAULT),
+        /** Local database reads for what the user is looking at, never held up by the network. */
+        DB_READ(2, 64, Process.THREAD_PRIORITY_DEFAULT),
+        /** Network calls for what the user is looking at. */
+        UI_NETWORK(3, 128, Process.THREAD_PRIORITY_DEFAULT),
+        /** Prefetching and other network calls nobody is waiting for. */
+        BACKGROUND_NETWORK(2, 128, Process.THREAD_PRIORITY_BACKGROUND),
+        /** Exports, clean-ups and warm-ups. */
+        MAINTENANCE(2, 64, Process.THREAD_PRIORITY_DEFAULT);
+
+        final int threads;
+        final int capacity;
+        final int threadPriority;
+
+        Lane(int threads, int capacity, int threadPriority) {
+            this.threads = threads;
+            this.capacity = capacity;
+            this.threadPriority = threadPriority;
+        }
+    }
+
+    public enum Priority {
+        HIGH, NORMAL, LOW
+    }
+
+    private static final AppScheduler INSTANCE = new AppScheduler();
+
+    private final Map<Lane, LaneExecutor> lanes = new EnumMap<>(Lane.class);
+
+    public static AppScheduler getInstance() {
+        return INSTANCE;
+    }
+
+    private AppScheduler() {
+        for (Lane lane : Lane.values()) {
+            lanes.put(lane, new LaneExecutor(lane));
+        }
+    }
+
+    public void execute(Lane lane, Priority priority, Runnable task) {
+        lanes.get(lane).execute(priority, task, true);
+    }
+
+    /**
+     * An Executor running tasks on the lane with the given priority, e.g. for CompletableFuture.
+     * Throws RejectedExecutionException when the lane is full.
+     */
+    public Executor executor(Lane lane, Priority priority) {
+        return task -> {
+            if (!lanes.get(lane).execute(priority, task, true)) {
+                throw new RejectedExecutionException("Lane " + lane + " is full");
+            }
+        };
+    }
+
+    /**
+     * A new Executor that runs its tasks on the lane one at a time, in submission order.
+     * Tasks wait in the serial executor itself until the previous one has finished, so at most
+     * one of them is in the lane's queue at a time, and it is never dropped.
+     */
+    public Executor serialExecutor(Lane lane, Priority priority) {
+        return new SerialExecutor(lanes.get(lane), priority);
+    }
+
+    /**
+     * Counters of every lane, one line each.
+     */
+    public String describe() {
+        StringBuilder builder = new StringBuilder();
+        for (LaneExecutor lane : lanes.values()) {
+            lane.describe(builder);
+            builder.append('\n');
+        }
+        return builder.toString();
+    }
+
+    private static final class Task implements Runnable, Comparable<Task> {
+        private static final AtomicLong sequence = new AtomicLong();
+
+        final Priority priority;
+        final long order = sequence.getAndIncrement();
+        final Runnable runnable;
+
+        Task(Priority priority, Runnable runnable) {
+            this.priority = priority;
+            this.runnable = runnable;
+        }
+
+        @Override
+        public void run() {
+            runnable.run();
+        }
+
+        @Override
+        public int compareTo(Task other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(order, other.order);
+        }
+    }
+
+    private static final class LaneExecutor {
+        private final Lane lane;
+        private final ThreadPoolExecutor pool;
+
+        private final AtomicLong submitted = new AtomicLong();
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final AtomicLong waitMillis = new AtomicLong();
+        private final AtomicLong runMillis = new AtomicLong();
+        private final AtomicInteger maxQueued = new AtomicInteger();
+
+        LaneExecutor(Lane lane) {
+            this.lane = lane;
+            // The queue itself is unbounded; execute() enforces the lane's capacity.
+            this.pool = new ThreadPoolExecutor(lane.threads, lane.threads,
+                    IDLE_TIMEOUT_SECONDS, TimeUnit.SECONDS,
+                    new PriorityBlockingQueue<>(), new LaneThreadFactory(lane));
+            this.pool.allowCoreThreadTimeOut(true);
+        }
+
+        /**
+         * @return false if the lane is full and the task was not queued.
+         */
+        boolean execute(Priority priority, Runnable runnable, boolean bounded) {
+            int queued = pool.getQueue().size();
+            if (bounded && queued >= lane.capacity) {
+                rejected.incrementAndGet();
+                Log.e(TAG, "Lane " + lane + " is full; rejecting a task.");
+                return false;
+            }
+            maxQueued.accumulateAndGet(queued + 1, Math::max);
+            submitted.incrementAndGet();
+            long queuedAt = SystemClock.elapsedRealtime();
+            pool.execute(new Task(priority, () -> {
+                long startedAt = SystemClock.elapsedRealtime();
+                waitMillis.addAndGet(startedAt - queuedAt);
+                try {
+                    runnable.run();
+                    completed.incrementAndGet();
+                } catch (RuntimeException e) {
+                    failed.incrementAndGet();
+                    Log.e(TAG, "A task on lane " + lane + " failed", e);
+                } finally {
+                    runMillis.addAndGet(SystemClock.elapsedRealtime() - startedAt);
+                }
+            }));
+            return true;
+        }
+
+        void describe(StringBuilder builder) {
+            long done = completed.get() + failed.get();
+            builder.append(lane)
+                    .append(": submitted ").append(submitted.get())
+                    .append(", completed ").append(completed.get())
+                    .append(", failed ").append(failed.get())
+                    .append(", rejected ").append(rejected.get())
+                    .append(", queued now ").append(pool.getQueue().size())
+                    .append(", max queued ").append(maxQueued.get())
+                    .append(", average wait ").append(done > 0 ? waitMillis.get() / done : 0).append(" ms")
+                    .append(", average run ").append(done > 0 ? runMillis.get() / done : 0).append(" ms");
+        }
+    }
+
+    private static final class LaneThreadFactory implements ThreadFactory {
+        private final Lane lane;
+        private final AtomicInteger count = new AtomicInteger();
+
+        LaneThreadFactory(Lane lane) {
+            this.lane = lane;
+        }
+
+        @Override
+        public Thread newThread(@NonNull Runnable runnable) {
+            return new Thread(() -> {
+                Process.setThreadPriority(lane.threadPriority);
+                runnable.run();
+            }, "AppScheduler-" + lane + "-" + count.incrementAndGet());
+        }
+    }
+
+    /**
+     * Hands its tasks to the lane one at a time; the next one is queued when the previous
+     * one finishes, whether or not it failed.
+     */
+    private static final class SerialExecutor implements Executor {
+        private final LaneExecutor lane;
+        private final Priority priority;
+        private final ArrayDeque<Runnable> pending = new ArrayDeque<>();
+        private boolean running = false;
+
+        SerialExecutor(LaneExecutor lane, Priority priority) {
+            this.lane = lane;
+            this.priority = priority;
+        }
+
+        @Override
+        public synchronized void execute(@NonNull Runnable task) {
+            pending.addLast(() -> {
+                try {
+                    task.run();
+                } finally {
+                    scheduleNext();
+                }
+            });
+            if (!running) {
+                scheduleNext();
+            }
+        }
+
+        private synchronized void scheduleNext() {
+            Runnable next = pending.pollFirst();
+            running = next != null;
+            if (running) {
+                lane.execute(priority, next, false);
+            }
+        }
+    }
+}
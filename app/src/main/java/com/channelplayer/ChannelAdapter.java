@@ -1,5 +1,6 @@
 package com.channelplayer;
 
+import android.content.Context;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -13,9 +14,11 @@ import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.channelplayer.cache.ChannelAvatarStore;
 import com.channelplayer.cache.ChannelInfo; // Use the entity from the cache package
 import com.squareup.picasso.Picasso;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -42,12 +45,26 @@ public class ChannelAdapter extends ListAdapter<ChannelInfo, ChannelAdapter.Chan
     public ChannelAdapter(OnChannelClickListener listener) {
         super(DIFF_CALLBACK);
         this.listener = listener;
+        setHasStableIds(true);
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        // The layout ID keeps this type distinct from VideoAdapter's in the shared pool.
+        return R.layout.channel_list_item;
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return ListViewPool.stableId(getItem(position).channelId);
     }
 
     @NonNull
     @Override
     public ChannelViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        View v = LayoutInflater.from(parent.getContext())
+        // Inflate with the pool's context so the holder can outlive this activity.
+        Context itemContext = ListViewPool.getInstance(parent.getContext()).getItemContext();
+        View v = LayoutInflater.from(itemContext)
                 .inflate(R.layout.channel_list_item, parent, false);
         return new ChannelViewHolder(v);
     }
@@ -59,6 +76,13 @@ public class ChannelAdapter extends ListAdapter<ChannelInfo, ChannelAdapter.Chan
         holder.bind(currentItem, listener);
     }
 
+    @Override
+    public void onViewRecycled(@NonNull ChannelViewHolder holder) {
+        super.onViewRecycled(holder);
+        // Recycled holders go to the app-wide pool; drop the reference to this screen's listener.
+        holder.itemView.setOnClickListener(null);
+    }
+
     @Override
     public void submitList(List<ChannelInfo> list) {
         // Keep a copy of the master list.
@@ -126,7 +150,13 @@ public class ChannelAdapter extends ListAdapter<ChannelInfo, ChannelAdapter.Chan
          */
         public void bind(final ChannelInfo item, final OnChannelClickListener listener) {
             channelTitle.setText(item.title);
-            Picasso.get().load(item.thumbnailUrl).into(channelIcon);
+            // Prefer the avatar stored during the last channel refresh; it works offline.
+            File avatar = ChannelAvatarStore.getInstance(itemView.getContext()).getCachedAvatar(item);
+            if (avatar != null) {
+                Picasso.get().load(avatar).into(channelIcon);
+            } else {
+                Picasso.get().load(item.thumbnailUrl).into(channelIcon);
+            }
             itemView.setOnClickListener(v -> listener.onChannelClick(item));
         }
     }
@@ -10,19 +10,14 @@ import androidx.appcompat.widget.SearchView;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
+import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
 
 import com.channelplayer.cache.ChannelInfo;
+import com.channelplayer.cache.ChannelRepository;
 import com.channelplayer.cache.ChannelViewModel;
 import com.channelplayer.cache.ChannelViewModelFactory;
-import com.channelplayer.cache.ConfigRepository;
 import com.google.android.gms.auth.api.signin.GoogleSignIn;
 import com.google.android.gms.auth.api.signin.GoogleSignInAccount;
-import com.google.api.client.googleapis.extensions.android.gms.auth.GoogleAccountCredential;
-import com.google.api.client.http.javanet.NetHttpTransport;
-import com.google.api.client.json.gson.GsonFactory;
-import com.google.api.services.youtube.YouTube;
-
-import java.util.Collections;
 
 public class ChannelListActivity extends AppCompatActivity implements ChannelAdapter.OnChannelClickListener {
 
@@ -35,23 +30,23 @@ public class ChannelListActivity extends AppCompatActivity implements ChannelAda
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_channel_list);
 
-        ConfigRepository configRepository = ConfigRepository.getInstance(this, () -> {
-            Log.i(TAG, "Config loaded successfully.");
-        });
+        // Asks the user for a config file if there is none yet.
+        ConfigFilePicker.attach(this);
 
         setupHistoryButton();
         setupRecyclerView();
+        setupSwipeRefresh();
         setupSearchView();
 
         // 2. Authenticate and Initialize ViewModel
         GoogleSignInAccount signedInAccount = GoogleSignIn.getLastSignedInAccount(this);
         if (signedInAccount != null) {
-            // This is the ONLY place we create the YouTube service instance.
-            // It will be passed down to the repository via the ViewModel.
-            YouTube youtubeService = createYouTubeService(signedInAccount);
+            // The repository, and the YouTube service it uses, are shared by the whole app.
+            ChannelRepository repository = ChannelPlayerApplication.from(this)
+                    .getChannelRepository(signedInAccount.getAccount());
 
-            // 3. Use a ViewModelFactory to pass the youtubeService to the ViewModel
-            ChannelViewModelFactory factory = new ChannelViewModelFactory(getApplication(), youtubeService, configRepository);
+            // 3. Use a ViewModelFactory to pass the repository to the ViewModel
+            ChannelViewModelFactory factory = new ChannelViewModelFactory(getApplication(), repository);
             channelViewModel = new ViewModelProvider(this, factory).get(ChannelViewModel.class);
 
             // 4. Observe the LiveData from the ViewModel
@@ -71,12 +66,36 @@ public class ChannelListActivity extends AppCompatActivity implements ChannelAda
         );
     }
 
+    private void setupSwipeRefresh() {
+        SwipeRefreshLayout swipeRefresh = findViewById(R.id.channel_swipe_refresh);
+        swipeRefresh.setOnRefreshListener(() -> {
+            // Without a config the refresh waits for the file picker; don't spin meanwhile.
+            if (channelViewModel == null
+                    || ChannelPlayerApplication.from(this).getConfigRepository().getCurrentConfig() == null) {
+                swipeRefresh.setRefreshing(false);
+                return;
+            }
+            channelViewModel.refresh().whenComplete((ignored, error) -> runOnUiThread(() -> {
+                swipeRefresh.setRefreshing(false);
+                if (error != null) {
+                    Log.e(TAG, "Channel refresh failed", error);
+                }
+            }));
+        });
+    }
+
     private void setupRecyclerView() {
         RecyclerView recyclerView = findViewById(R.id.channel_recycler_view);
-        recyclerView.setLayoutManager(new LinearLayoutManager(this));
+        LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        recyclerView.setLayoutManager(layoutManager);
+        ListViewPool listViewPool = ListViewPool.getInstance(this);
+        listViewPool.attach(recyclerView, layoutManager);
         // Initialize the adapter (it's empty at first) and set the click listener
         channelAdapter = new ChannelAdapter(this);
         recyclerView.setAdapter(channelAdapter);
+
+        // Every screen reachable from here lists videos; have their rows ready before they open.
+        listViewPool.preInflate(new VideoAdapter(null), R.layout.video_list_item, 10);
     }
 
     private void setupSearchView() {
@@ -95,20 +114,6 @@ public class ChannelListActivity extends AppCompatActivity implements ChannelAda
         });
     }
 
-    private YouTube createYouTubeService(GoogleSignInAccount account) {
-        GoogleAccountCredential credential = GoogleAccountCredential.usingOAuth2(
-                this,
-                Collections.singleton("https://www.googleapis.com/auth/youtube.readonly"));
-        credential.setSelectedAccount(account.getAccount());
-
-        return new YouTube.Builder(
-                new NetHttpTransport(),
-                new GsonFactory(),
-                credential)
-                .setApplicationName(getString(R.string.app_name))
-                .build();
-    }
-
     private void observeChannelData() {
         // The ViewModel gets data from the repository, which handles all caching and networking.
         channelViewModel.getAllChannels().observe(this, channelInfoList -> {
@@ -117,7 +122,13 @@ public class ChannelListActivity extends AppCompatActivity implements ChannelAda
             if (channelInfoList != null) {
                 Log.d(TAG, "UI updated with " + channelInfoList.size() + " channels from cache.");
                 // The ListAdapter will efficiently handle displaying the new list.
-                channelAdapter.submitList(channelInfoList);
+                channelAdapter.submitList(channelInfoList, () -> {
+                    if (!channelInfoList.isEmpty()) {
+                        // Posted, so it runs after the frame that lays out the first rows.
+                        getWindow().getDecorView().post(() ->
+                                TraceRecorder.markSinceProcessStart("Startup.firstChannelRow"));
+                    }
+                });
             }
         });
     }
@@ -0,0 +1,66 @@
+package com.channelplayer;
+
+import android.accounts.Account;
+import android.app.Application;
+import android.content.Context;
+
+import com.channelplayer.cache.ChannelRepository;
+import com.channelplayer.cache.ConfigRepository;
+import com.channelplayer.cache.VideoRepository;
+import com.google.api.services.youtube.YouTube;
+
+/**
+ * Holds the services that must outlive any single activity.
+ */
+public class ChannelPlayerApplication extends Application {
+
+    private ConfigRepository configRepository;
+
+    // The repositories below use the YouTube client of one account and are rebuilt only when
+    // a different account asks for them.
+    private String repositoryAccount;
+    private YouTube youtubeService;
+    private ChannelRepository channelRepository;
+    private VideoRepository videoRepository;
+
+    public static ChannelPlayerApplication from(Context context) {
+        return (ChannelPlayerApplication) context.getApplicationContext();
+    }
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        // Opens the database, the API connections and the WebView provider in parallel.
+        StartupInitializer.start(this);
+        // Starts reading the config file in the background right away.
+        configRepository = new ConfigRepository(this);
+    }
+
+    public ConfigRepository getConfigRepository() {
+        return configRepository;
+    }
+
+    public synchronized ChannelRepository getChannelRepository(Account account) {
+        useAccount(account);
+        if (channelRepository == null) {
+            channelRepository = new ChannelRepository(this, youtubeService, configRepository);
+        }
+        return channelRepository;
+    }
+
+    public synchronized VideoRepository getVideoRepository(Account account) {
+        useAccount(account);
+        if (videoRepository == null) {
+            videoRepository = new VideoRepository(this, youtubeService, configRepository);
+        }
+        return videoRepository;
+    }
+
+    private void useAccount(Account account) {
+        if (account.name.equals(repositoryAccount)) return;
+        repositoryAccount = account.name;
+        youtubeService = YouTubeServiceFactory.create(this, account, YouTubeServiceFactory.SCOPE_READONLY);
+        channelRepository = null;
+        videoRepository = null;
+    }
+}
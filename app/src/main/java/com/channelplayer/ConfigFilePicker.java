@@ -0,0 +1,95 @@
+package com.channelplayer;
+
+import android.app.Activity;
+import android.content.Intent;
+import android.net.Uri;
+import android.util.Log;
+import android.widget.Toast;
+
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
+import androidx.appcompat.app.AlertDialog;
+import androidx.appcompat.app.AppCompatActivity;
+
+import com.channelplayer.cache.ConfigRepository;
+
+/**
+ * Routes the config file picker through an activity, and only when ConfigRepository
+ * reports that it has no usable config file.
+ * Must be created in the activity's onCreate, before the activity is started.
+ */
+public class ConfigFilePicker {
+    private static final String TAG = "ConfigFilePicker";
+    private static final String USER_CHANNELS_FILENAME = "channel_handles.json";
+
+    private final AppCompatActivity activity;
+    private final ConfigRepository configRepository;
+    private final ActivityResultLauncher<Intent> createDocumentLauncher;
+    private boolean pickerShown = false;
+
+    public static void attach(AppCompatActivity activity) {
+        new ConfigFilePicker(activity);
+    }
+
+    private ConfigFilePicker(AppCompatActivity activity) {
+        this.activity = activity;
+        this.configRepository = ChannelPlayerApplication.from(activity).getConfigRepository();
+
+        createDocumentLauncher = activity.registerForActivityResult(
+                new ActivityResultContracts.StartActivityForResult(), result -> {
+                    pickerShown = false;
+                    if (result.getResultCode() == Activity.RESULT_OK && result.getData() != null) {
+                        Uri uri = result.getData().getData();
+                        if (uri != null) {
+                            handleFileSelection(uri);
+                        }
+                    }
+                });
+
+        configRepository.isConfigFileRequired().observe(activity, required -> {
+            if (Boolean.TRUE.equals(required) && !pickerShown) {
+                launchPicker();
+            }
+        });
+    }
+
+    private void launchPicker() {
+        Intent intent = new Intent(Intent.ACTION_CREATE_DOCUMENT);
+        intent.addCategory(Intent.CATEGORY_OPENABLE);
+        intent.setType("application/json");
+        intent.putExtra(Intent.EXTRA_TITLE, USER_CHANNELS_FILENAME);
+
+        Log.d(TAG, "Launching file picker to select destination for config file.");
+        pickerShown = true;
+        createDocumentLauncher.launch(intent);
+    }
+
+    /**
+     * Handles the URI returned from the file picker. It checks if the file exists
+     * and prompts the user for action if it does.
+     *
+     * @param uri The URI of the file selected by the user.
+     */
+    private void handleFileSelection(Uri uri) {
+        // ACTION_CREATE_DOCUMENT can return a URI to an existing file. The check runs off the main thread.
+        configRepository.hasContent(uri).thenAccept(hasContent -> activity.runOnUiThread(() -> {
+            if (activity.isFinishing() || activity.isDestroyed()) return;
+            if (!hasContent) {
+                // If the file is new or empty, write the default config directly.
+                configRepository.useConfigFile(uri, true);
+                return;
+            }
+            new AlertDialog.Builder(activity)
+                    .setTitle("File Exists")
+                    .setMessage("The file '" + USER_CHANNELS_FILENAME + "' already exists. Do you want to overwrite it with the default configuration?")
+                    .setPositiveButton("Overwrite", (dialog, which) -> configRepository.useConfigFile(uri, true))
+                    .setNegativeButton("Keep Existing", (dialog, which) -> {
+                        // User wants to keep the existing file, just use it
+                        configRepository.useConfigFile(uri, false);
+                        Toast.makeText(activity, "Using existing config file.", Toast.LENGTH_SHORT).show();
+                    })
+                    .setIcon(R.drawable.ban_video)
+                    .show();
+        }));
+    }
+}
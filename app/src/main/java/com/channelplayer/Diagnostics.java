@@ -0,0 +1,156 @@
+package com.channelplayer;
+
+import android.content.Context;
+import android.net.Uri;
+import android.util.Log;
+
+import androidx.annotation.WorkerThread;
+
+import java.io.BufferedWriter;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * In-app record of what the player did, for bug reports from devices we cannot attach to.
+ * Events go into a fixed-size ring buffer, so memory use stays bounded however long the app
+ * runs; the oldest events are overwritten first. The latest DOM dump of the watch page is kept
+ * next to them.
+ * export() streams the events, the DOM dump, the AppScheduler counters and optionally the
+ * process's logcat straight to a document, without building the whole text in memory.
+ */
+public final class Diagnostics {
+    private static final String TAG = "Diagnostics";
+
+    private static final int CAPACITY = 1000;
+    private static final int MAX_MESSAGE_CHARS = 1000;
+    private static final int MAX_DOM_DUMP_CHARS = 512 * 1024;
+    private static final int COPY_BUFFER_SIZE = 8192;
+
+    private static final Diagnostics INSTANCE = new Diagnostics();
+
+    /**
+     * One recorded event. Instances are never modified.
+     */
+    public static final class Event {
+        public final long timeMillis;
+        public final String tag;
+        public final String message;
+
+        Event(long timeMillis, String tag, String message) {
+            this.timeMillis = timeMillis;
+            this.tag = tag;
+            this.message = message;
+        }
+    }
+
+    private final Event[] events = new Event[CAPACITY];
+    private int next = 0;     // Slot for the next event
+    private int count = 0;    // Number of valid events, at most CAPACITY
+    private volatile String domDump;
+
+    public static Diagnostics getInstance() {
+        return INSTANCE;
+    }
+
+    private Diagnostics() {}
+
+    /**
+     * Records an event. Safe to call from any thread.
+     */
+    public void record(String tag, String message) {
+        if (message.length() > MAX_MESSAGE_CHARS) {
+            message = message.substring(0, MAX_MESSAGE_CHARS) + "...";
+        }
+        Event event = new Event(System.currentTimeMillis(), tag, message);
+        synchronized (events) {
+            events[next] = event;
+            next = (next + 1) % CAPACITY;
+            if (count < CAPACITY) count++;
+        }
+    }
+
+    /**
+     * Keeps the DOM dump for the next export, replacing the previous one.
+     */
+    public void recordDomDump(String dom) {
+        if (dom.length() > MAX_DOM_DUMP_CHARS) {
+            dom = dom.substring(0, MAX_DOM_DUMP_CHARS);
+        }
+        domDump = dom;
+        record("DOM_DUMP", "Captured " + dom.length() + " characters.");
+    }
+
+    /**
+     * Writes the report to the document.
+     * @param includeLogcat Also copy this process's logcat, piped straight from the logcat process.
+     */
+    @WorkerThread
+    public void export(Context context, Uri uri, boolean includeLogcat) throws IOException {
+        Event[] snapshot;
+        int first;
+        int size;
+        synchronized (events) {
+            snapshot = events.clone();  // Copies references only
+            size = count;
+            first = (next - count + CAPACITY) % CAPACITY;
+        }
+
+        try (OutputStream out = context.getContentResolver().openOutputStream(uri, "wt")) {
+            if (out == null) throw new FileNotFoundException("Cannot open " + uri);
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            SimpleDateFormat format = new SimpleDateFormat("MM-dd HH:mm:ss.SSS", Locale.ROOT);
+
+            writer.write("=== Events (" + size + ") ===\n");
+            for (int i = 0; i < size; i++) {
+                Event event = snapshot[(first + i) % CAPACITY];
+                writer.write(format.format(new Date(event.timeMillis)));
+                writer.write(' ');
+                writer.write(event.tag);
+                writer.write(": ");
+                writer.write(event.message);
+                writer.write('\n');
+            }
+
+            String dom = domDump;
+            if (dom != null) {
+                writer.write("\n=== DOM dump ===\n");
+                writer.write(dom);
+                writer.write('\n');
+            }
+
+            writer.write("\n=== Scheduler ===\n");
+            writer.write(AppScheduler.getInstance().describe());
+
+            if (includeLogcat) {
+                writer.write("\n=== Logcat ===\n");
+                writer.flush();
+                copyLogcat(out);
+            }
+            writer.flush();
+        }
+    }
+
+    private static void copyLogcat(OutputStream out) throws IOException {
+        // -d: dump the log and exit
+        // -v threadtime: includes date, invocation time, priority, tag, and PID
+        Process process = Runtime.getRuntime().exec(new String[]{"logcat", "-d", "-v", "threadtime"});
+        try (InputStream in = process.getInputStream()) {
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        } finally {
+            process.destroy();
+        }
+        Log.d(TAG, "Copied logcat to the export.");
+    }
+}
@@ -9,7 +9,6 @@ import androidx.activity.result.ActivityResultLauncher;
 import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.appcompat.app.AppCompatActivity;
 
-import com.channelplayer.cache.ConfigRepository;
 import com.google.android.gms.auth.api.signin.GoogleSignIn;
 import com.google.android.gms.auth.api.signin.GoogleSignInAccount;
 import com.google.android.gms.auth.api.signin.GoogleSignInClient;
@@ -42,8 +41,13 @@ public class FullscreenActivity extends AppCompatActivity {
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
-        super.onCreate(savedInstanceState);
+        try (TraceRecorder.Span ignored = TraceRecorder.begin("FullscreenActivity.onCreate")) {
+            super.onCreate(savedInstanceState);
+            setUpSignIn();
+        }
+    }
 
+    private void setUpSignIn() {
         // Set the content view to our new layout with the sign-in button
         setContentView(R.layout.activity_fullscreen);
 
@@ -60,22 +64,24 @@ public class FullscreenActivity extends AppCompatActivity {
         // 3. Find the sign-in button in our layout and set its click listener
         SignInButton signInButton = findViewById(R.id.sign_in_button);
         signInButton.setOnClickListener(v -> signIn());
+
+        // 4. Inflate the channel rows while sign-in and config loading are still in progress
+        ListViewPool.getInstance(this).preInflate(new ChannelAdapter(null), R.layout.channel_list_item, 10);
     }
 
     @Override
     protected void onStart() {
         super.onStart();
 
-        ConfigRepository.getInstance(this, () -> {
-            Log.i(TAG, "Config loaded successfully.");
-            // Check if a user is already signed in from a previous session
-            GoogleSignInAccount account = GoogleSignIn.getLastSignedInAccount(this);
-            if (account != null) {
-                // If they are, skip the login screen and go directly to the next activity.
-                Log.d(TAG, "User already signed in. Navigating to channel list.");
-                navigateToChannelList();
-            }
-        });
+        // The config keeps loading in the background; the channel list renders from the
+        // database cache until it is ready, so there is nothing to wait for here.
+        // Check if a user is already signed in from a previous session
+        GoogleSignInAccount account = GoogleSignIn.getLastSignedInAccount(this);
+        if (account != null) {
+            // If they are, skip the login screen and go directly to the next activity.
+            Log.d(TAG, "User already signed in. Navigating to channel list.");
+            navigateToChannelList();
+        }
     }
 
     // This method is called when the user clicks the sign-in button.
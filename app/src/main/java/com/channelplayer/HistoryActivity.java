@@ -2,6 +2,7 @@ package com.channelplayer;
 
 import android.content.Intent;
 import android.os.Bundle;
+import android.os.Looper;
 import android.util.Log;
 
 import androidx.appcompat.app.AppCompatActivity;
@@ -48,12 +49,20 @@ public class HistoryActivity extends AppCompatActivity implements VideoAdapter.O
         // 4. Observe LiveData for history changes and fetch the data
         observeHistoryList();
         historyViewModel.fetchHistory();
+
+        // 5. Build the player's WebView once this screen has drawn, so opening a video is quick
+        Looper.myQueue().addIdleHandler(() -> {
+            WebViewPool.prewarm(this);
+            return false;
+        });
     }
 
     private void setupRecyclerView() {
         RecyclerView recyclerView = findViewById(R.id.video_recycler_view);
-        recyclerView.setLayoutManager(new LinearLayoutManager(this));
+        LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        recyclerView.setLayoutManager(layoutManager);
         recyclerView.setHasFixedSize(true);
+        ListViewPool.getInstance(this).attach(recyclerView, layoutManager);
 
         // Reusing the existing VideoAdapter
         videoAdapter = new VideoAdapter(this);
@@ -86,7 +95,7 @@ public class HistoryActivity extends AppCompatActivity implements VideoAdapter.O
 
         Intent intent = new Intent(this, PlayerActivity.class);
         intent.putExtra(PlayerActivity.EXTRA_VIDEO_ID, item.videoId);
-        intent.putExtra(PlayerActivity.EXTRA_VIDEO_DESCRIPTION, item.description);
+        intent.putExtra(PlayerActivity.EXTRA_VIDEO_DESCRIPTION, item.getDisplayDescription());
         intent.putExtra(PlayerActivity.EXTRA_ACCOUNT_NAME, googleSignInAccount.getAccount().name);
 
         // 5. Add the new EXTRA_POSITION to the intent
@@ -0,0 +1,208 @@
+package com.channelplayer;
+
+import android.graphics.Rect;
+import android.util.Log;
+import android.webkit.JavascriptInterface;
+
+/**
+ * The object the injected player script talks to as "AndroidBridge".
+ * It is registered once per pooled WebView and forwards calls to whichever player currently
+ * owns that WebView. Calls arrive on a WebView binder thread, not the main thread.
+ *
+ * Player state uses a change-only protocol: the page sends one compact message only when
+ * something the player UI shows has changed, e.g. "t:42|p:0" or "a:10,20,300,80".
+ * Keys are:
+ *   t - playback position in whole seconds
+ *   p - 1 if paused, 0 if playing
+ *   d - duration in whole seconds, 0 while unknown
+ *   v - ID of the video the page is showing
+ *   a - skip-ad button rectangle in device pixels as left,top,width,height
+ */
+public class JsBridge {
+    private static final String TAG = "JsBridge";
+
+    public static final int CHANGED_POSITION = 1;
+    public static final int CHANGED_PAUSED = 1 << 1;
+    public static final int CHANGED_DURATION = 1 << 2;
+    public static final int CHANGED_VIDEO_ID = 1 << 3;
+    public static final int CHANGED_AD_RECT = 1 << 4;
+
+    /**
+     * The player state after a message was applied. Instances are never modified.
+     */
+    public static final class PlayerState {
+        public final int positionSeconds;
+        public final boolean paused;
+        public final int durationSeconds;
+        public final String videoId;
+        public final Rect adRect;
+
+        PlayerState(int positionSeconds, boolean paused, int durationSeconds, String videoId, Rect adRect) {
+            this.positionSeconds = positionSeconds;
+            this.paused = paused;
+            this.durationSeconds = durationSeconds;
+            this.videoId = videoId;
+            this.adRect = adRect;
+        }
+    }
+
+    public interface Listener {
+        /**
+         * @param state The full state after the change.
+         * @param changes A mask of CHANGED_ flags telling which fields the message touched.
+         */
+        void onPlayerState(PlayerState state, int changes);
+
+        /** The page has unmuted the video. */
+        void onUnmuted();
+
+        /** The page has moved the video to the position the player asked to restore. */
+        void onPositionRestored(int seconds);
+
+        /** The video reached its end and the page stopped YouTube from starting the next one. */
+        void onAutoplayCancelled();
+
+        /** Playback resumed after window.softReload(). */
+        void onSoftReloaded();
+
+        /**
+         * A media event of the video element, for playback metrics.
+         * @param type "playing", "waiting", "stalled", "error" or "unmute_attempt".
+         * @param timeMillis When it happened, in wall clock milliseconds.
+         */
+        void onMediaEvent(String type, long timeMillis);
+    }
+
+    private static final PlayerState INITIAL_STATE = new PlayerState(0, true, 0, "", new Rect());
+
+    private volatile Listener listener;
+    private volatile PlayerState state = INITIAL_STATE;
+
+    /**
+     * @param listener The player that owns the WebView, or null when it goes back to the pool.
+     */
+    public void setListener(Listener listener) {
+        this.listener = listener;
+        this.state = INITIAL_STATE;
+    }
+
+    @JavascriptInterface
+    public void onPlayerState(String message) {
+        if (message == null || message.isEmpty()) return;
+
+        PlayerState previous = state;
+        int position = previous.positionSeconds;
+        boolean paused = previous.paused;
+        int duration = previous.durationSeconds;
+        String videoId = previous.videoId;
+        Rect adRect = previous.adRect;
+        int changes = 0;
+
+        int start = 0;
+        while (start < message.length()) {
+            int end = message.indexOf('|', start);
+            if (end < 0) end = message.length();
+            // Every entry is a one-letter key, a colon and a value.
+            if (end - start >= 2 && message.charAt(start + 1) == ':') {
+                String value = message.substring(start + 2, end);
+                try {
+                    switch (message.charAt(start)) {
+                        case 't':
+                            position = Integer.parseInt(value);
+                            changes |= CHANGED_POSITION;
+                            break;
+                        case 'p':
+                            paused = "1".equals(value);
+                            changes |= CHANGED_PAUSED;
+                            break;
+                        case 'd':
+                            duration = Integer.parseInt(value);
+                            changes |= CHANGED_DURATION;
+                            break;
+                        case 'v':
+                            videoId = value;
+                            changes |= CHANGED_VIDEO_ID;
+                            break;
+                        case 'a':
+                            adRect = parseRect(value);
+                            changes |= CHANGED_AD_RECT;
+                            break;
+                        default:
+                            Log.w(TAG, "Unknown player state key in: " + message);
+                    }
+                } catch (NumberFormatException e) {
+                    Log.w(TAG, "Malformed player state message: " + message, e);
+                }
+            }
+            start = end + 1;
+        }
+        if (changes == 0) return;
+
+        PlayerState next = new PlayerState(position, paused, duration, videoId, adRect);
+        state = next;
+        Listener current = listener;
+        if (current != null) {
+            current.onPlayerState(next, changes);
+        }
+    }
+
+    private static Rect parseRect(String value) {
+        String[] parts = value.split(",");
+        if (parts.length != 4) return new Rect();
+        int left = Integer.parseInt(parts[0]);
+        int top = Integer.parseInt(parts[1]);
+        return new Rect(left, top,
+                left + Integer.parseInt(parts[2]),
+                top + Integer.parseInt(parts[3]));
+    }
+
+    @JavascriptInterface
+    public void onUnmuted() {
+        Listener current = listener;
+        if (current != null) {
+            current.onUnmuted();
+        }
+    }
+
+    @JavascriptInterface
+    public void onPositionRestored(int seconds) {
+        Listener current = listener;
+        if (current != null) {
+            current.onPositionRestored(seconds);
+        }
+    }
+
+    @JavascriptInterface
+    public void onAutoplayCancelled() {
+        Listener current = listener;
+        if (current != null) {
+            current.onAutoplayCancelled();
+        }
+    }
+
+    @JavascriptInterface
+    public void onSoftReloaded() {
+        Listener current = listener;
+        if (current != null) {
+            current.onSoftReloaded();
+        }
+    }
+
+    @JavascriptInterface
+    public void onMediaEvent(String type, long timeMillis) {
+        if (type == null) return;
+        Listener current = listener;
+        if (current != null) {
+            current.onMediaEvent(type, timeMillis);
+        }
+    }
+
+    @JavascriptInterface
+    public void onDomDump(String domString) {
+        if (domString == null || domString.isEmpty()) {
+            Log.d(TAG, "Received empty or null DOM string.");
+            return;
+        }
+        Diagnostics.getInstance().recordDomDump(domString);
+    }
+}
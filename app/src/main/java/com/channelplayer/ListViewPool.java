@@ -0,0 +1,110 @@
+package com.channelplayer;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.view.ContextThemeWrapper;
+import android.widget.FrameLayout;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+
+/**
+ * An app-wide RecycledViewPool shared by every list screen.
+ * List items are inflated with an application-scoped themed context, so view holders can
+ * move between ChannelListActivity, SelectVideoActivity and HistoryActivity without
+ * keeping a destroyed activity alive.
+ */
+public final class ListViewPool {
+    private static final String TAG = "ListViewPool";
+
+    // Enough holders to fill a tablet screen twice without inflating.
+    private static final int MAX_HOLDERS_PER_TYPE = 16;
+
+    private static volatile ListViewPool INSTANCE;
+
+    private final RecyclerView.RecycledViewPool pool = new RecyclerView.RecycledViewPool();
+    private final Context itemContext;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public static ListViewPool getInstance(final Context context) {
+        if (INSTANCE == null) {
+            synchronized (ListViewPool.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new ListViewPool(context.getApplicationContext());
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    private ListViewPool(Context appContext) {
+        this.itemContext = new ContextThemeWrapper(appContext, R.style.Theme_ChannelPlayer);
+        pool.setMaxRecycledViews(R.layout.channel_list_item, MAX_HOLDERS_PER_TYPE);
+        pool.setMaxRecycledViews(R.layout.video_list_item, MAX_HOLDERS_PER_TYPE);
+    }
+
+    /**
+     * The context adapters must inflate list items with. It is not tied to any activity.
+     */
+    public Context getItemContext() {
+        return itemContext;
+    }
+
+    /**
+     * Makes the RecyclerView draw from the shared pool and return its children to it
+     * when the screen goes away.
+     */
+    public void attach(RecyclerView recyclerView, LinearLayoutManager layoutManager) {
+        layoutManager.setRecycleChildrenOnDetach(true);
+        recyclerView.setRecycledViewPool(pool);
+    }
+
+    /**
+     * Inflates view holders of the given type on a background thread and parks them in the
+     * shared pool, so the next screen using this adapter type does not inflate on first draw.
+     * @param adapter An adapter of the same class the target screen uses. It is only used
+     *                to create view holders, never bound.
+     * @param viewType The view type the adapter reports for its items.
+     * @param count How many holders should be ready in the pool.
+     */
+    @MainThread
+    public void preInflate(@NonNull RecyclerView.Adapter<?> adapter, int viewType, int count) {
+        // RecycledViewPool is not thread safe: read and write it on the main thread only.
+        int missing = Math.min(count, MAX_HOLDERS_PER_TYPE) - pool.getRecycledViewCount(viewType);
+        if (missing <= 0) return;
+
+        AppScheduler.getInstance().execute(AppScheduler.Lane.MAINTENANCE, AppScheduler.Priority.HIGH, () -> {
+            FrameLayout parent = new FrameLayout(itemContext);
+            for (int i = 0; i < missing; i++) {
+                try {
+                    RecyclerView.ViewHolder holder = adapter.createViewHolder(parent, viewType);
+                    mainHandler.post(() -> pool.putRecycledView(holder));
+                } catch (RuntimeException e) {
+                    // Inflation off the main thread is best effort; the list will inflate on demand.
+                    Log.w(TAG, "Pre-inflation failed for view type " + viewType, e);
+                    return;
+                }
+            }
+            Log.d(TAG, "Pre-inflated " + missing + " holders for view type " + viewType);
+        });
+    }
+
+    /**
+     * Derives a stable 64-bit RecyclerView item ID from a YouTube video or channel ID.
+     * Uses FNV-1a, which is far less collision prone than String.hashCode() for short IDs.
+     */
+    public static long stableId(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        // RecyclerView.NO_ID is -1; never hand it out.
+        return hash == RecyclerView.NO_ID ? 0 : hash;
+    }
+}
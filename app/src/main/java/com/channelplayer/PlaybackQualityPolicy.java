@@ -0,0 +1,140 @@
+package com.channelplayer;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.PowerManager;
+import android.util.Log;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.channelplayer.cache.QualityLimits;
+
+/**
+ * Decides the highest video quality the player may use, from the default network and the
+ * battery saver state, so metered and weak connections do not get YouTube's high bitrates.
+ * The limits come from the config file, see QualityLimits.
+ * Between start() and stop() the listener is called on the main thread whenever the limit
+ * changes.
+ */
+public final class PlaybackQualityPolicy {
+    private static final String TAG = "PlaybackQualityPolicy";
+
+    public interface Listener {
+        /**
+         * @param maxHeight The highest allowed frame height in pixels, 0 for no limit.
+         */
+        void onMaxQualityChanged(int maxHeight);
+    }
+
+    private final Context context;
+    private final QualityLimits limits;
+    private final Listener listener;
+    private final ConnectivityManager connectivityManager;
+    private final PowerManager powerManager;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    @Nullable
+    private NetworkCapabilities capabilities;
+    private int maxHeight = -1;     // -1 until first computed
+    private boolean started = false;
+
+    private final ConnectivityManager.NetworkCallback networkCallback = new ConnectivityManager.NetworkCallback() {
+        @Override
+        public void onCapabilitiesChanged(@NonNull Network network, @NonNull NetworkCapabilities networkCapabilities) {
+            capabilities = networkCapabilities;
+            update();
+        }
+
+        @Override
+        public void onLost(@NonNull Network network) {
+            capabilities = null;
+            update();
+        }
+    };
+
+    private final BroadcastReceiver powerSaveReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            update();
+        }
+    };
+
+    public PlaybackQualityPolicy(Context context, QualityLimits limits, Listener listener) {
+        this.context = context.getApplicationContext();
+        this.limits = limits;
+        this.listener = listener;
+        this.connectivityManager = this.context.getSystemService(ConnectivityManager.class);
+        this.powerManager = this.context.getSystemService(PowerManager.class);
+    }
+
+    /**
+     * Starts watching, and reports the current limit right away.
+     */
+    @MainThread
+    public void start() {
+        if (started) return;
+        started = true;
+        capabilities = connectivityManager.getNetworkCapabilities(connectivityManager.getActiveNetwork());
+        update();
+        // Callbacks go to the main thread, where the state above is read and written.
+        connectivityManager.registerDefaultNetworkCallback(networkCallback, handler);
+        context.registerReceiver(powerSaveReceiver,
+                new IntentFilter(PowerManager.ACTION_POWER_SAVE_MODE_CHANGED), null, handler);
+    }
+
+    @MainThread
+    public void stop() {
+        if (!started) return;
+        started = false;
+        connectivityManager.unregisterNetworkCallback(networkCallback);
+        context.unregisterReceiver(powerSaveReceiver);
+    }
+
+    /**
+     * The current limit, 0 for no limit.
+     */
+    @MainThread
+    public int getMaxHeight() {
+        return Math.max(maxHeight, 0);
+    }
+
+    private void update() {
+        int next = computeMaxHeight();
+        if (next == maxHeight) return;
+        maxHeight = next;
+        Log.d(TAG, "Max quality is now " + (next == 0 ? "unlimited" : next + "p"));
+        Diagnostics.getInstance().record(TAG, "Max quality " + next + "p");
+        if (started) {
+            listener.onMaxQualityChanged(next);
+        }
+    }
+
+    private int computeMaxHeight() {
+        NetworkCapabilities caps = capabilities;
+        int height;
+        if (caps == null || !caps.hasCapability(NetworkCapabilities.NET_CAPABILITY_NOT_METERED)) {
+            // Without a network nothing plays anyway; assume the worst for when one comes back.
+            height = limits.meteredMaxHeight;
+        } else {
+            height = limits.unmeteredMaxHeight;
+        }
+        // 0 when the network gives no estimate.
+        int kbps = caps != null ? caps.getLinkDownstreamBandwidthKbps() : 0;
+        if (kbps > 0 && kbps < limits.weakBelowKbps) {
+            height = QualityLimits.min(height, limits.weakMaxHeight);
+        }
+        if (powerManager.isPowerSaveMode()) {
+            height = QualityLimits.min(height, limits.batterySaverMaxHeight);
+        }
+        return height;
+    }
+}
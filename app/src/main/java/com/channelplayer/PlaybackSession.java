@@ -0,0 +1,88 @@
+package com.channelplayer;
+
+import com.channelplayer.cache.PlaybackSessionInfo;
+
+/**
+ * Collects the quality-of-experience metrics of one visit to the player from the media events
+ * the page reports (see JsBridge.onMediaEvent) and from the player's own actions.
+ * Media event times come from the page, as wall clock milliseconds.
+ * Called from both the main thread and the WebView binder thread.
+ */
+public final class PlaybackSession {
+
+    private final PlaybackSessionInfo info;
+    private long loadStartedAt = 0;         // First watch page load
+    private long rebufferStartedAt = 0;     // 0 while not rebuffering
+    private boolean firstFrameSeen = false;
+
+    public PlaybackSession(String videoId) {
+        info = new PlaybackSessionInfo(videoId, System.currentTimeMillis());
+    }
+
+    /**
+     * The watch page starts loading. Time to first frame is measured from the first load, so
+     * it includes any reloads needed to get the video going; a stall in progress ends here.
+     */
+    public synchronized void onPageLoad() {
+        long now = System.currentTimeMillis();
+        endRebuffer(now);
+        if (loadStartedAt == 0) {
+            loadStartedAt = now;
+        }
+    }
+
+    public synchronized void onReload() {
+        info.reloads++;
+    }
+
+    /**
+     * @param type One of "playing", "waiting", "stalled", "error" or "unmute_attempt".
+     */
+    public synchronized void onMediaEvent(String type, long timeMillis) {
+        switch (type) {
+            case "playing":
+                if (!firstFrameSeen) {
+                    firstFrameSeen = true;
+                    long start = loadStartedAt != 0 ? loadStartedAt : info.startedAt;
+                    info.timeToFirstFrameMs = Math.max(0, timeMillis - start);
+                }
+                endRebuffer(timeMillis);
+                break;
+            case "waiting":
+            case "stalled":
+                // Buffering before the first frame is part of the start time.
+                if (firstFrameSeen && rebufferStartedAt == 0) {
+                    rebufferStartedAt = timeMillis;
+                    info.rebufferCount++;
+                }
+                break;
+            case "error":
+                info.errors++;
+                break;
+            case "unmute_attempt":
+                info.unmuteAttempts++;
+                break;
+        }
+    }
+
+    public synchronized void onUnmuted() {
+        info.unmuted = true;
+    }
+
+    private void endRebuffer(long timeMillis) {
+        if (rebufferStartedAt != 0) {
+            info.rebufferMs += Math.max(0, timeMillis - rebufferStartedAt);
+            rebufferStartedAt = 0;
+        }
+    }
+
+    /**
+     * Ends the session and returns its metrics for storing.
+     */
+    public synchronized PlaybackSessionInfo finish() {
+        long now = System.currentTimeMillis();
+        endRebuffer(now);
+        info.sessionMs = now - info.startedAt;
+        return info;
+    }
+}
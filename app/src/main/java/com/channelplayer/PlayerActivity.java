@@ -1,6 +1,5 @@
 package com.channelplayer;
 
-import android.annotation.SuppressLint;
 import android.content.Intent;
 import android.content.res.Configuration;
 import android.net.Uri;
@@ -9,11 +8,13 @@ import android.os.Handler;
 import android.os.Looper;
 import android.util.Log;
 import android.view.View;
+import android.view.ViewGroup;
 import android.webkit.ConsoleMessage;
 import android.webkit.CookieManager;
-import android.webkit.JavascriptInterface;
 import android.webkit.PermissionRequest;
 import android.webkit.WebChromeClient;
+import android.webkit.WebResourceRequest;
+import android.webkit.WebResourceResponse;
 import android.webkit.WebView;
 import android.webkit.WebViewClient;
 import android.widget.ImageButton;
@@ -30,41 +31,34 @@ import androidx.appcompat.app.AppCompatActivity;
 
 import com.channelplayer.cache.AppDatabase;
 import com.channelplayer.cache.ChannelDao;
+import com.channelplayer.cache.ConfigSnapshot;
 import com.channelplayer.cache.HistoryDao;
 import com.channelplayer.cache.HistoryInfo;
 import com.channelplayer.cache.HistoryViewModel;
 import com.channelplayer.cache.HistoryViewModelFactory;
+import com.channelplayer.cache.PlaybackSessionDao;
+import com.channelplayer.cache.PlaybackSessionInfo;
+import com.channelplayer.cache.PlaybackSummary;
+import com.channelplayer.cache.QualityLimits;
+import com.channelplayer.cache.RatingRepository;
 import com.google.android.gms.auth.api.signin.GoogleSignIn;
 import com.google.android.gms.auth.api.signin.GoogleSignInAccount;
-import com.google.api.client.googleapis.extensions.android.gms.auth.GoogleAccountCredential;
 import com.google.api.client.googleapis.extensions.android.gms.auth.UserRecoverableAuthIOException;
-import com.google.api.client.http.javanet.NetHttpTransport;
-import com.google.api.client.json.gson.GsonFactory;
 import com.google.api.services.youtube.YouTube;
-import com.google.api.services.youtube.model.VideoGetRatingResponse;
 
-import org.json.JSONException;
-import org.json.JSONObject;
-
-import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.util.Collections;
-import java.util.Timer;
-import java.util.TimerTask;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.atomic.AtomicInteger;
 
-public class PlayerActivity extends AppCompatActivity {
+public class PlayerActivity extends AppCompatActivity implements JsBridge.Listener {
 
     public static final String EXTRA_VIDEO_ID = "EXTRA_VIDEO_ID";
     public static final String EXTRA_VIDEO_DESCRIPTION = "EXTRA_VIDEO_DESCRIPTION";
     public static final String EXTRA_ACCOUNT_NAME = "EXTRA_ACCOUNT_NAME";
     public static final String EXTRA_POSITION = "EXTRA_POSITION";
 
+    private WebViewPool.Entry pooledWebView;
     private ViewOnlyWebView youtubeWebView;
+    private View webViewContainer;
     private String videoId;
     private String accountName;
     private boolean isYouTubePageLoaded = false;
@@ -81,27 +75,39 @@ public class PlayerActivity extends AppCompatActivity {
     private String rating = "none"; // "like", "dislike", "none"
 
     private YouTube youtube;
-    private final ExecutorService executorService = Executors.newSingleThreadExecutor();
     private ActivityResultLauncher<Intent> requestAuthorizationLauncher;
 
-    // --- Timer for unmute logic ---
-    private Timer unmuteTimer;
-    private final AtomicInteger unmuteAttempts = new AtomicInteger(0);
-    private static final int MAX_UNMUTE_ATTEMPTS = 20;
     private TextView descriptionTextView;
     private View controlBar;
     private final Handler handler = new Handler(Looper.getMainLooper());
+    // How long a soft reload may take to resume playback before the page is reloaded.
+    private static final long SOFT_RELOAD_TIMEOUT_MS = 5000;
+    private final Runnable softReloadFallback = () -> {
+        Log.w("PlayerActivity", "Soft reload did not resume playback; reloading the page.");
+        Diagnostics.getInstance().record("PlayerActivity", "Soft reload timed out for " + videoId);
+        syncAndLoadVideo();
+    };
     private int progress = 0;
     private boolean progressAltered = false;
-    private ActivityResultLauncher<Intent> createFileLauncher;
-    private String pendingLogs;
 
     private HistoryDao historyDao;
+    private PlaybackSessionDao playbackSessionDao;
+    private PlaybackSession playbackSession;
+    private PlaybackQualityPolicy qualityPolicy;
+
+    private static final long PLAYBACK_STATS_KEEP_MS = 90 * 24 * 60 * 60 * 1000L;
+    private static final long PLAYBACK_SUMMARY_WINDOW_MS = 7 * 24 * 60 * 60 * 1000L;
+
+    private static final String TRACE_FIRST_PROGRESS = "PlayerActivity.firstProgress";
+    private static final String TRACE_PAGE_LOAD = "PlayerActivity.pageLoad";
+    private int pageLoadCookie = 0;
+    private RatingRepository ratingRepository;
 
-    @SuppressLint({"SetJavaScriptEnabled", "JavascriptInterface"})
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        // Ends with the first position report from the page, i.e. once the video plays.
+        TraceRecorder.beginAsync(TRACE_FIRST_PROGRESS, System.identityHashCode(this));
         setContentView(R.layout.activity_player);
 
         requestAuthorizationLauncher = registerForActivityResult(
@@ -114,6 +120,7 @@ public class PlayerActivity extends AppCompatActivity {
 
         videoId = getIntent().getStringExtra(EXTRA_VIDEO_ID);
         accountName = getIntent().getStringExtra(EXTRA_ACCOUNT_NAME);
+        playbackSession = new PlaybackSession(videoId);
         String videoDescription = getIntent().getStringExtra(EXTRA_VIDEO_DESCRIPTION);
         progress = getIntent().getIntExtra(EXTRA_POSITION, 0);
         if (progress > 0)
@@ -122,7 +129,11 @@ public class PlayerActivity extends AppCompatActivity {
         descriptionTextView = findViewById(R.id.video_description_text);
         descriptionTextView.setText(videoDescription);
 
-        youtubeWebView = findViewById(R.id.youtube_webview);
+        webViewContainer = findViewById(R.id.youtube_webview_container);
+        pooledWebView = WebViewPool.acquire(this);
+        youtubeWebView = pooledWebView.webView;
+        ((ViewGroup) webViewContainer).addView(youtubeWebView, new ViewGroup.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
         playPauseButton = findViewById(R.id.play_pause_button);
         reloadButton = findViewById(R.id.reload);
         banVideoButton = findViewById(R.id.ban_video);
@@ -131,19 +142,19 @@ public class PlayerActivity extends AppCompatActivity {
         videoSeekBar = findViewById(R.id.video_seekbar);
         controlBar = findViewById(R.id.control_bar);
 
-        createFileLauncher = registerForActivityResult(
-                new ActivityResultContracts.StartActivityForResult(),
-                result -> {
-                    if (result.getResultCode() == RESULT_OK && result.getData() != null && pendingLogs != null) {
-                        Uri uri = result.getData().getData();
-                        writeTextToUri(uri, pendingLogs);
-                        pendingLogs = null;
-                    }
-                }
-        );
-
         AppDatabase db = AppDatabase.getDatabase(getApplication());
         historyDao = db.historyDao();
+        playbackSessionDao = db.playbackSessionDao();
+
+        ConfigSnapshot config = ChannelPlayerApplication.from(this).getConfigRepository().getCurrentConfig();
+        qualityPolicy = new PlaybackQualityPolicy(this,
+                config != null ? config.qualityLimits : QualityLimits.DEFAULT,
+                maxHeight -> {
+                    if (isYouTubePageLoaded) {
+                        safeInvoke("setMaxQuality(" + maxHeight + ")", null);
+                    }
+                });
+        ratingRepository = RatingRepository.getInstance(this);
 
         setupWebView();
         setupPlayerControls();
@@ -160,24 +171,73 @@ public class PlayerActivity extends AppCompatActivity {
         checkVideoRating();
     }
 
+    @Override
+    protected void onStart() {
+        super.onStart();
+        qualityPolicy.start();
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        qualityPolicy.stop();
+    }
+
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        stopUnmuteTimer(); // Ensure timer is stopped when activity is destroyed
+        // Late JS callbacks must not touch the WebView once the next player owns it.
+        isYouTubePageLoaded = false;
+        handler.removeCallbacks(softReloadFallback);
+        WebViewPool.release(pooledWebView);
+        savePlaybackSession();
+        // Closed if the player goes away before playback or the page load finishes, so the
+        // trace has no slice left open; no-ops otherwise.
+        TraceRecorder.endAsync(TRACE_FIRST_PROGRESS, System.identityHashCode(this));
+        TraceRecorder.endAsync(TRACE_PAGE_LOAD, pageLoadCookie);
+    }
+
+    private void savePlaybackSession() {
+        PlaybackSessionInfo session = playbackSession.finish();
+        AppScheduler.getInstance().execute(AppScheduler.Lane.DB_WRITE, AppScheduler.Priority.NORMAL, () -> {
+            playbackSessionDao.insert(session);
+            playbackSessionDao.deleteOlderThan(System.currentTimeMillis() - PLAYBACK_STATS_KEEP_MS);
+        });
+    }
+
+    /**
+     * Shows the playback metrics of the last week, so changes to the player can be judged.
+     */
+    private void showPlaybackSummary() {
+        AppScheduler.getInstance().execute(AppScheduler.Lane.DB_READ, AppScheduler.Priority.HIGH, () -> {
+            PlaybackSummary summary = playbackSessionDao.getSummary(
+                    System.currentTimeMillis() - PLAYBACK_SUMMARY_WINDOW_MS);
+            String message = "Sessions: " + summary.sessions
+                    + " (" + summary.startedSessions + " played)\n"
+                    + "Time to first frame: " + summary.averageTimeToFirstFrameMs + " ms average, "
+                    + summary.maxTimeToFirstFrameMs + " ms worst\n"
+                    + "Rebuffering: " + summary.rebufferCount + " times, "
+                    + summary.rebufferMs / 1000 + " s in total\n"
+                    + "Unmute attempts: " + summary.unmuteAttempts
+                    + ", sessions left muted: " + summary.unmuteFailures + "\n"
+                    + "Reloads: " + summary.reloads + "\n"
+                    + "Media errors: " + summary.errors + "\n"
+                    + "Time in player: " + summary.sessionMs / 60000 + " min";
+            runOnUiThread(() -> {
+                if (isDestroyed()) return;
+                new AlertDialog.Builder(this)
+                        .setTitle("Playback in the last 7 days")
+                        .setMessage(message)
+                        .setPositiveButton("OK", null)
+                        .show();
+            });
+        });
     }
 
     private void setupYoutubeApi() {
         GoogleSignInAccount account = GoogleSignIn.getLastSignedInAccount(this);
         if (account != null) {
-            GoogleAccountCredential credential = GoogleAccountCredential.usingOAuth2(
-                    this, Collections.singleton("https://www.googleapis.com/auth/youtube.force-ssl"));
-            credential.setSelectedAccount(account.getAccount());
-
-            youtube = new YouTube.Builder(
-                    new NetHttpTransport(),
-                    new GsonFactory(),
-                    credential
-            ).setApplicationName(getString(R.string.app_name)).build();
+            youtube = YouTubeServiceFactory.create(this, account.getAccount(), YouTubeServiceFactory.SCOPE_FORCE_SSL);
         }
     }
 
@@ -201,10 +261,21 @@ public class PlayerActivity extends AppCompatActivity {
             togglePlayPause();
         });
 
-        reloadButton.setOnClickListener(v -> {
-            progress = videoSeekBar.getProgress();
-            progressAltered = true;
-            syncAndLoadVideo();
+        reloadButton.setOnClickListener(v -> reloadVideo());
+        // Hidden on purpose: captures the page and saves a report for bug hunting.
+        // Confirmed like a ban, and nothing in it leaves the player: reports go to the app's own
+        // files, not through the system file picker.
+        reloadButton.setOnLongClickListener(v -> {
+            new AlertDialog.Builder(this)
+                    .setTitle("Diagnostics")
+                    .setMessage("Open the diagnostics menu?")
+                    .setPositiveButton("Yes", (dialog, which) -> showDiagnosticsMenu())
+                    .setNegativeButton("No", (dialog, which) -> {
+                        dialog.dismiss();
+                    })
+                    .setCancelable(true)
+                    .show();
+            return true;
         });
 
         banVideoButton.setOnClickListener(v -> {
@@ -250,7 +321,7 @@ public class PlayerActivity extends AppCompatActivity {
             @Override
             public void onProgressChanged(SeekBar seekBar, int progress, boolean fromUser) {
                 if (progress > 30 && (progress % 10 == 0)) {
-                    executorService.submit(() -> {
+                    AppScheduler.getInstance().execute(AppScheduler.Lane.DB_WRITE, AppScheduler.Priority.NORMAL, () -> {
                         HistoryInfo history = historyDao.getVideoById(videoId);
                         if (history == null)
                             historyDao.insert(System.currentTimeMillis(), videoId, progress);
@@ -277,49 +348,66 @@ public class PlayerActivity extends AppCompatActivity {
         Handler progressUpdateHandler = new Handler(Looper.getMainLooper());
     }
 
-    private String getLogcatOutput() {
-        StringBuilder log = new StringBuilder();
-        try {
-            // -d: dump the log to screen and exits
-            // -v threadtime: includes date, invocation time, priority, tag, and PID
-            // *:V (optional): filter for all Verbose logs
-            Process process = Runtime.getRuntime().exec("logcat -d -v threadtime");
-            BufferedReader bufferedReader = new BufferedReader(
-                    new InputStreamReader(process.getInputStream()));
-
-            String line;
-            while ((line = bufferedReader.readLine()) != null) {
-                log.append(line).append("\n");
-            }
-        } catch (IOException e) {
-            Log.e("PlayerActivity", "Logcat capture failed", e);
-        }
-        return log.toString();
+    private void showDiagnosticsMenu() {
+        new AlertDialog.Builder(this)
+                .setTitle("Diagnostics")
+                .setItems(new String[]{"Save logs", "Save trace", "Playback stats"}, (dialog, which) -> {
+                    if (which == 0) {
+                        if (isYouTubePageLoaded) {
+                            // The report should have this page in it, not the previous dump.
+                            dumpDOM(this::writeDiagnostics);
+                        } else {
+                            writeDiagnostics();
+                        }
+                    } else if (which == 1) {
+                        writeTrace();
+                    } else {
+                        showPlaybackSummary();
+                    }
+                })
+                .show();
     }
 
-    private void saveLogsToFile(String logs) {
-        Intent intent = new Intent(Intent.ACTION_CREATE_DOCUMENT);
-        intent.addCategory(Intent.CATEGORY_OPENABLE);
-        intent.setType("text/plain");
-        intent.putExtra(Intent.EXTRA_TITLE, "channel_player_logs.txt");
+    /**
+     * A report file in the app's external files directory, where adb or a file manager can
+     * reach it; the internal one if there is no external storage.
+     */
+    private File getReportFile(String name) {
+        File dir = getExternalFilesDir(null);
+        return new File(dir != null ? dir : getFilesDir(), name);
+    }
 
-        // We need to store the logs temporarily to write them once the user picks a location
-        this.pendingLogs = logs;
-        createFileLauncher.launch(intent);
+    private void writeDiagnostics() {
+        File file = getReportFile("channel_player_logs.txt");
+        AppScheduler.getInstance().execute(AppScheduler.Lane.MAINTENANCE, AppScheduler.Priority.NORMAL, () -> {
+            try {
+                Diagnostics.getInstance().export(getApplicationContext(), Uri.fromFile(file), true);
+                runOnUiThread(() -> Toast.makeText(this, "Logs saved to " + file, Toast.LENGTH_LONG).show());
+            } catch (IOException e) {
+                Log.e("PlayerActivity", "Failed to write logs", e);
+            }
+        });
     }
 
-    private void writeTextToUri(Uri uri, String text) {
-        try (OutputStream os = getContentResolver().openOutputStream(uri)) {
-            assert os != null;
-            os.write(text.getBytes());
-            Toast.makeText(this, "Logs saved successfully", Toast.LENGTH_SHORT).show();
-        } catch (IOException e) {
-            Log.e("PlayerActivity", "Failed to write logs", e);
-        }
+    private void writeTrace() {
+        File file = getReportFile("channel_player_trace.json");
+        AppScheduler.getInstance().execute(AppScheduler.Lane.MAINTENANCE, AppScheduler.Priority.NORMAL, () -> {
+            try {
+                TraceRecorder.export(getApplicationContext(), Uri.fromFile(file));
+                runOnUiThread(() -> Toast.makeText(this, "Trace saved to " + file, Toast.LENGTH_LONG).show());
+            } catch (IOException e) {
+                Log.e("PlayerActivity", "Failed to write trace", e);
+            }
+        });
     }
 
-    private void dumpDOM() {
-        youtubeWebView.evaluateJavascript("window.dumpDOM();", null);
+    /**
+     * Sends the page's DOM to Diagnostics, then runs onDumped on the main thread.
+     * The page hands the dump to JsBridge.onDomDump synchronously, so it is recorded by the time
+     * the script's result arrives, even if the script failed.
+     */
+    private void dumpDOM(Runnable onDumped) {
+        youtubeWebView.evaluateJavascript("window.dumpDOM();", result -> onDumped.run());
     }
 
     private void safeInvoke(String functionCall, Runnable onComplete) {
@@ -334,16 +422,16 @@ public class PlayerActivity extends AppCompatActivity {
                 "}";
 
         youtubeWebView.evaluateJavascript(script, result -> {
-            if ("'undefined'".equals(result)) {
+            // The result is JSON, so the string comes back in double quotes.
+            if ("\"undefined\"".equals(result)) {
+                // Only possible without document start scripts. Scripts are evaluated in order,
+                // so the call can follow the injection right away.
                 injectPlayerControlScript(youtubeWebView);
-                isScriptInjected = true;
-                new Handler(Looper.getMainLooper()).postDelayed(() -> {
-                    youtubeWebView.evaluateJavascript("window." + functionCall, value -> {
-                        if (onComplete != null) {
-                            runOnUiThread(onComplete);
-                        }
-                    });
-                }, 100);
+                youtubeWebView.evaluateJavascript("window." + functionCall, value -> {
+                    if (onComplete != null) {
+                        runOnUiThread(onComplete);
+                    }
+                });
             } else {
                 if (onComplete != null) {
                     runOnUiThread(onComplete);
@@ -354,14 +442,16 @@ public class PlayerActivity extends AppCompatActivity {
 
     private void checkVideoRating() {
         if (youtube == null) return;
-        executorService.submit(() -> {
+        AppScheduler.getInstance().execute(AppScheduler.Lane.UI_NETWORK, AppScheduler.Priority.NORMAL, () -> {
+            // Usually prefetched by SelectVideoActivity together with the rest of the page.
+            String cached = ratingRepository.getCachedRating(videoId);
+            if (cached != null) {
+                rating = cached;
+                runOnUiThread(this::updateRatingButtons);
+                return;
+            }
             try {
-                VideoGetRatingResponse response = youtube.videos().getRating(Collections.singletonList(videoId)).execute();
-                if (response.getItems() != null && !response.getItems().isEmpty()) {
-                    rating = response.getItems().get(0).getRating();
-                } else {
-                    rating = "none";
-                }
+                rating = ratingRepository.fetchRating(youtube, videoId);
                 runOnUiThread(this::updateRatingButtons);
             } catch (UserRecoverableAuthIOException e) {
                 requestAuthorizationLauncher.launch(e.getIntent());
@@ -373,9 +463,9 @@ public class PlayerActivity extends AppCompatActivity {
 
     private void rateVideo(String newRating) {
         if (youtube == null) return;
-        executorService.submit(() -> {
+        AppScheduler.getInstance().execute(AppScheduler.Lane.UI_NETWORK, AppScheduler.Priority.HIGH, () -> {
             try {
-                youtube.videos().rate(videoId, newRating).execute();
+                ratingRepository.rate(youtube, videoId, newRating);
                 rating = newRating;
                 runOnUiThread(this::updateRatingButtons);
             } catch (UserRecoverableAuthIOException e) {
@@ -406,76 +496,53 @@ public class PlayerActivity extends AppCompatActivity {
         }
     }
 
-    private class JsBridge {
-        @JavascriptInterface
-        public void updateProgress(final double currentTime, final double duration, final boolean isPaused) {
-            runOnUiThread(() -> {
-                if (!getCurrentVideoId().equals(videoId)) {
-                    progressAltered = false;
-                    syncAndLoadVideo();
-                }
-
-                if (isSeeking) return;
-
-                if (!Double.isNaN(duration) && duration > 0) {
-                    videoSeekBar.setMax((int) duration);
-                    videoSeekBar.setMin(0);
-                    videoSeekBar.setProgress((int) currentTime);
-                    videoSeekBar.invalidate();
-                }
+    @Override
+    public void onPlayerState(JsBridge.PlayerState state, int changes) {
+        if ((changes & JsBridge.CHANGED_POSITION) != 0 && state.positionSeconds > 0) {
+            // No-op after the first time.
+            TraceRecorder.endAsync(TRACE_FIRST_PROGRESS, System.identityHashCode(this));
+        }
+        runOnUiThread(() -> {
+            // The WebView may already belong to the next player.
+            if (isDestroyed()) return;
+
+            if ((changes & JsBridge.CHANGED_VIDEO_ID) != 0
+                    && !state.videoId.isEmpty() && !state.videoId.equals(videoId)) {
+                // The page navigated away from our video (e.g. autoplay); take it back.
+                Diagnostics.getInstance().record("PlayerActivity", "Page switched to " + state.videoId + ", reloading " + videoId);
+                progressAltered = false;
+                syncAndLoadVideo();
+                return;
+            }
 
-                youtubeWebView.evaluateJavascript("window.getSkipAdRectangle();", value -> {
-                    if (value.equals("null")) return;
-                    try {
-                        value = value.replace("\\", "");
-                        if (value.startsWith("\"") && value.endsWith("\""))
-                            value = value.substring(1, value.length() - 1);
-                        JSONObject rect = new JSONObject(value);
-                        youtubeWebView.allowTouch(rect);
-                    } catch (JSONException e) {
-                        throw new RuntimeException(e);
-                    }
-                });
+            if ((changes & JsBridge.CHANGED_AD_RECT) != 0) {
+                youtubeWebView.allowTouch(state.adRect);
+            }
 
-                if (isPaused && isPlaying) {
+            if ((changes & JsBridge.CHANGED_PAUSED) != 0) {
+                if (state.paused && isPlaying) {
                     playPauseButton.setImageResource(R.drawable.baseline_play_arrow_24);
                     isPlaying = false;
-                } else if (!isPaused && !isPlaying) {
+                } else if (!state.paused && !isPlaying) {
                     playPauseButton.setImageResource(R.drawable.outline_autopause_24);
                     isPlaying = true;
                 }
-            });
-        }
-        private String getCurrentVideoId() {
-            String url = youtubeWebView.getUrl();
-            if (url != null && url.contains("v=")) {
-                // Split by 'v=' and then by any subsequent params like '&'
-                String[] parts = url.split("v=");
-                if (parts.length > 1) {
-                    return parts[1].split("&")[0];
-                }
             }
-            return videoId; // Fallback to the initial ID
-        }
 
+            if (isSeeking) return;
 
-        @JavascriptInterface
-        public void onDomDump(String domString) {
-            final int maxLogSize = 4000;
-            if (domString == null || domString.isEmpty()) {
-                Log.d("DOM_DUMP", "Received empty or null DOM string.");
-                return;
-            }
-            for(int i = 0; i <= domString.length() / maxLogSize; i++) {
-                int start = i * maxLogSize;
-                int end = Math.min((i + 1) * maxLogSize, domString.length());
-                Log.d("DOM_DUMP", domString.substring(start, end));
+            if ((changes & (JsBridge.CHANGED_POSITION | JsBridge.CHANGED_DURATION)) != 0
+                    && state.durationSeconds > 0) {
+                videoSeekBar.setMax(state.durationSeconds);
+                videoSeekBar.setMin(0);
+                videoSeekBar.setProgress(state.positionSeconds);
             }
-        }
+        });
     }
 
-    @SuppressLint("SetJavaScriptEnabled")
     private void setupWebView() {
+        // Settings and the AndroidBridge interface were applied once by WebViewPool.
+        pooledWebView.bridge.setListener(this);
         youtubeWebView.setWebChromeClient(new WebChromeClient() {
             @Override
             public boolean onConsoleMessage(ConsoleMessage consoleMessage) {
@@ -483,6 +550,10 @@ public class PlayerActivity extends AppCompatActivity {
                 Log.d("WebViewConsole", consoleMessage.message() + " -- From line "
                         + consoleMessage.lineNumber() + " of "
                         + consoleMessage.sourceId());
+                if (consoleMessage.messageLevel() == ConsoleMessage.MessageLevel.ERROR) {
+                    Diagnostics.getInstance().record("WebViewConsole", consoleMessage.message()
+                            + " -- " + consoleMessage.sourceId() + ":" + consoleMessage.lineNumber());
+                }
                 return true;
             }
             @Override
@@ -496,31 +567,46 @@ public class PlayerActivity extends AppCompatActivity {
             @Override
             public void onProgressChanged(WebView view, int newProgress) {
                 super.onProgressChanged(view, newProgress);
-                if (newProgress == 10 && !isScriptInjected) {
+                // Only needed when WebViewPool could not register the script at document start.
+                if (newProgress == 10 && !isScriptInjected && !pooledWebView.scriptAtDocumentStart) {
                     injectPlayerControlScript(view);
-                    isScriptInjected = true;
                 }
             }
         });
-        youtubeWebView.getSettings().setMediaPlaybackRequiresUserGesture(false);
-        youtubeWebView.getSettings().setJavaScriptEnabled(true);
-        youtubeWebView.getSettings().setDomStorageEnabled(true);
-        youtubeWebView.addJavascriptInterface(new JsBridge(), "AndroidBridge");
     }
 
     private void syncAndLoadVideo() {
+        handler.removeCallbacks(softReloadFallback);
         CookieManager cookieManager = CookieManager.getInstance();
         cookieManager.setAcceptCookie(true);
+        // Read on the WebView's network thread, so capture what it needs now.
+        final RequestBlocker requestBlocker = RequestBlocker.fromConfig(
+                ChannelPlayerApplication.from(this).getConfigRepository().getCurrentConfig());
+        final String playingVideoId = videoId;
         youtubeWebView.setWebViewClient(new WebViewClient() {
+            @Override
+            public WebResourceResponse shouldInterceptRequest(WebView view, WebResourceRequest request) {
+                WebResourceResponse blocked = requestBlocker.intercept(request, playingVideoId);
+                return blocked != null ? blocked : super.shouldInterceptRequest(view, request);
+            }
+
             @Override
             public void onPageFinished(WebView view, String url) {
                 super.onPageFinished(view, url);
                 if (url.startsWith("https://accounts.google.com")) {
+                    YouTubeSession.onSignInFinished(PlayerActivity.this, accountName);
                     loadYouTubeUrl();
                 } else if (url.startsWith("https://m.youtube.com/watch")) {
+                    TraceRecorder.endAsync(TRACE_PAGE_LOAD, pageLoadCookie);
+                    Log.d("PlayerActivity", "Blocked " + requestBlocker.getBlockedCount() + " requests so far.");
+                    Diagnostics.getInstance().record("PlayerActivity", "Loaded " + url
+                            + ", blocked " + requestBlocker.getBlockedCount() + " requests.");
                     isYouTubePageLoaded = true;
                     doChangeConfiguration(getResources().getConfiguration().orientation);
-                    startUnmuteTimer();
+                    safeInvoke("setupProgressUpdater()", null);
+                    safeInvoke("watchSkipAdButton()", null);
+                    safeInvoke("setMaxQuality(" + qualityPolicy.getMaxHeight() + ")", null);
+                    attachPlaybackHooks();
                 }
             }
 
@@ -528,13 +614,16 @@ public class PlayerActivity extends AppCompatActivity {
             public void onPageStarted(WebView view, String url, android.graphics.Bitmap favicon) {
                 super.onPageStarted(view, url, favicon);
                 if (url.startsWith("https://m.youtube.com/watch")) {
+                    TraceRecorder.endAsync(TRACE_PAGE_LOAD, pageLoadCookie);
+                    TraceRecorder.beginAsync(TRACE_PAGE_LOAD, ++pageLoadCookie);
+                    playbackSession.onPageLoad();
                     isScriptInjected = false;
                     isYouTubePageLoaded = false;
-                    stopUnmuteTimer();
                 }
             }
         });
-        if (accountName != null && !accountName.isEmpty()) {
+        if (accountName != null && !accountName.isEmpty()
+                && !YouTubeSession.isSignedIn(this, accountName)) {
             youtubeWebView.loadUrl("https://accounts.google.com/ServiceLogin?service=youtube");
         } else {
             loadYouTubeUrl();
@@ -545,239 +634,98 @@ public class PlayerActivity extends AppCompatActivity {
         isYouTubePageLoaded = false;
         isScriptInjected = false;
         String youtubeWatchUrl = "https://m.youtube.com/watch?v=" + videoId;
+        if (progressAltered && progress > 0) {
+            // Lets the player start buffering at the saved position instead of at 0.
+            youtubeWatchUrl += "&t=" + progress + "s";
+        }
         youtubeWebView.loadUrl(youtubeWatchUrl);
     }
 
-    private void startUnmuteTimer() {
-        stopUnmuteTimer();
-        unmuteAttempts.set(0);
-        unmuteTimer = new Timer();
-
-        unmuteTimer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                runOnUiThread(() -> {
-                    if (!isYouTubePageLoaded || unmuteAttempts.get() >= MAX_UNMUTE_ATTEMPTS) {
-                        if (unmuteAttempts.get() >= MAX_UNMUTE_ATTEMPTS) {
-                            Log.w("UnmuteTimer", "Max unmute attempts reached, stopping timer.");
-                        }
-                        stopUnmuteTimer();
-                        return;
-                    }
-
-                    int attempt = unmuteAttempts.incrementAndGet();
-                    Log.d("UnmuteTimer", "Attempting to unmute, attempt #" + attempt);
+    /**
+     * Lets the page unmute the video, restore the saved position and cancel autoplay by itself,
+     * driven by media events. The page reports back through the JsBridge.Listener callbacks.
+     */
+    private void attachPlaybackHooks() {
+        int restoreSeconds = progressAltered ? progress : -1;
+        if (progressAltered) {
+            videoSeekBar.setProgress(progress);
+        }
+        safeInvoke("attachPlaybackHooks(" + restoreSeconds + ")", null);
+    }
 
-                    String script = "if (typeof window.unmute === 'function') { window.unmute(); } else { 'false'; }";
-                    youtubeWebView.evaluateJavascript(script, result -> {
-                        if ("true".equals(result)) {
-                            Log.d("UnmuteTimer", "Unmute successful, stopping timer.");
-                            stopUnmuteTimer();
-                        }
-                    });
-                });
-            }
-        }, 1000, 1000); // Start after 1s, repeat every 1s
+    @Override
+    public void onUnmuted() {
+        Log.d("PlayerActivity", "Video unmuted.");
+        Diagnostics.getInstance().record("PlayerActivity", "Video unmuted.");
+        playbackSession.onUnmuted();
     }
 
-    private void stopUnmuteTimer() {
-        if (unmuteTimer != null) {
-            unmuteTimer.cancel();
-            unmuteTimer = null;
-            if (progressAltered) {
-                videoSeekBar.setProgress(progress);
-                safeInvoke("seekTo(" + progress + ")", null);
-                progressAltered = false;
-            }
+    @Override
+    public void onMediaEvent(String type, long timeMillis) {
+        playbackSession.onMediaEvent(type, timeMillis);
+        if (!"playing".equals(type)) {
+            Diagnostics.getInstance().record("PlayerActivity", "Media event: " + type);
         }
     }
 
-    private void injectPlayerControlScript(WebView view) {
-        // This script now re-queries for the 'video' element in each function
-        // to avoid issues with injection timing.
-        String script = """
-            // Helper to bypass TrustedHTML restrictions
-            function getTrustedHTML(html) {
-                if (window.trustedTypes && window.trustedTypes.createPolicy) {
-                    const policy = window.trustedTypes.defaultPolicy ||\s
-                                   window.trustedTypes.createPolicy('web-view-injection', {
-                                       createHTML: (s) => s
-                                   });
-                    return policy.createHTML(html);
-                }
-                return html;
-            }
-
-            window.ensureVideoMaximized = function() {
-                if (document.querySelector('#full-screen-player-style'))
-                    return;
-
-                var style = document.createElement('style');
-                style.id = 'full-screen-player-style';
-                style.type = 'text/css';
-                const css = `
-                    /* Make the body and html black, and hide overflow */
-                    html, body {
-                        background-color: black !important;
-                        overflow: hidden !important;
-                        height: 100% !important;
-                    }
-                    /* Hide every element on the page by default */
-                    body > * {
-                        display: none !important;
-                    }
-                    /* Specifically un-hide the player container and its parents */
-                    ytm-watch, ytm-player, #player-container-id, #player {
-                        display: block !important;
-                    }
-                    #header-bar {
-                        display: none !important;
-                    }
-
-                    /* Force the player and its containers to fill the entire viewport */
-                    ytm-watch, ytm-player, #player-container-id, #player, .html5-video-player {
-                        position: fixed !important;
-                        top: 0 !important;
-                        left: 0 !important;
-                        width: 100vw !important; /* Viewport Width */
-                        height: 100vh !important; /* Viewport Height */
-                        z-index: 9999 !important;
-                        margin: 0 !important;
-                        padding: 0 !important;
-                    }
-                `;
-                style.innerHTML = getTrustedHTML(css);
-                document.head.appendChild(style);
-            }
+    @Override
+    public void onPositionRestored(int seconds) {
+        runOnUiThread(() -> {
+            if (isDestroyed()) return;
+            Log.d("PlayerActivity", "Position restored to " + seconds + "s.");
+            Diagnostics.getInstance().record("PlayerActivity", "Position restored to " + seconds + "s.");
+            progressAltered = false;
+        });
+    }
 
-            // --- Player Control Functions ---
-            window.togglePlayPause = function() {
-                const video = document.querySelector('video');
-                if (video) {
-                    video.muted = false;
-                    if (video.paused) { video.play(); } else { video.pause(); }
-                    return true;
-                }
-                return false;
-            };
-
-            window.seekTo = function(seconds) {
-                const video = document.querySelector('video');
-                if (video) {
-                    video.currentTime = seconds;
-                    return true;
-                }
-                return false;
-            };
-
-            window.is_paused = function() {
-                const video = document.querySelector('video');
-                return video ? video.paused : true;
-            };
-
-            window.ensureNoNextVideo = function() {
-                const video = document.querySelector('video');
-                // 2. Define the Stop Logic
-                const handleVideoEnd = () => {
-                    console.log("Custom End Detection: Stopping video and canceling autoplay.");
-                    video.pause();
-
-                    video.currentTime = 0.0;
-                    if (typeof AndroidBridge !== 'undefined') {
-                        AndroidBridge.updateProgress(video.currentTime, video.duration, video.paused);
-                    }
-                };
-
-                // We can check if we are at the very end during timeupdates.
-                video.addEventListener('timeupdate', () => {
-                    if (video.currentTime > 0 && video.currentTime >= video.duration - 0.05) {
-                        // If the video is essentially at the end but not paused/ended yet
-                        if (!video.paused) {
-                            handleVideoEnd();
-                        }
-                    }
-                });
-            };
+    @Override
+    public void onAutoplayCancelled() {
+        Log.d("PlayerActivity", "Video ended, autoplay cancelled.");
+        Diagnostics.getInstance().record("PlayerActivity", "Video ended, autoplay cancelled.");
+    }
 
-            window.unmute = function() {
-                const video = document.querySelector('video');
-                if (video) {
-                    if (video.muted) {
-                        video.muted = false;
-                    }
-                    window.ensureNoNextVideo();
-                    // Return true if the video is now unmuted.
-                    return !video.muted;
-                }
-                return false; // Video not found
-            };
-
-            window.getSkipAdRectangle = function() {
-                var skipBtn = document.querySelector('BUTTON.ytp-ad-skip-button-modern');
-                if (skipBtn) {
-                    const rect = skipBtn.getBoundingClientRect();
-                    const dpr = window.devicePixelRatio || 1;
-
-                    return '{' +
-                        '"left":' + (rect.left * dpr) + ',' +
-                        '"top":' + (rect.top * dpr) + ',' +
-                        '"width":' + (rect.width * dpr) + ',' +
-                        '"height":' + (rect.height * dpr) +
-                    '}';
-                }
-                return '{"left": 0, "top": 0, "width": 0, "height": 0}';
-            };
-
-            // --- Event Listeners for Progress Reporting ---
-            // This part still needs to find the video initially, but it's less critical if it fails.
-            // The core controls will still work.
-            window.setupProgressUpdater = function() {
-                const video = document.querySelector('video');
-                if (video) {
-                    const progressUpdater = () => {
-                        if (typeof AndroidBridge !== 'undefined') {
-                            AndroidBridge.updateProgress(video.currentTime, video.duration, video.paused);
-                        }
-                    };
-                    video.addEventListener('timeupdate', progressUpdater);
-                    video.addEventListener('pause', progressUpdater);
-                    video.addEventListener('play', progressUpdater);
-                }
+    /**
+     * Restarts the video at the seek bar position. Tries to restart it inside the loaded page
+     * first and navigates again only if that is not possible or does not resume playback.
+     */
+    private void reloadVideo() {
+        playbackSession.onReload();
+        progress = videoSeekBar.getProgress();
+        progressAltered = true;
+        handler.removeCallbacks(softReloadFallback);
+        if (!isYouTubePageLoaded) {
+            syncAndLoadVideo();
+            return;
+        }
+        String script = "typeof window.softReload === 'function' && window.softReload(" + progress + ");";
+        youtubeWebView.evaluateJavascript(script, result -> {
+            if (isDestroyed()) return;
+            if ("true".equals(result)) {
+                handler.postDelayed(softReloadFallback, SOFT_RELOAD_TIMEOUT_MS);
+            } else {
+                syncAndLoadVideo();
             }
+        });
+    }
 
-            // --- DOM Dump Function ---
-            window.dumpDOM = function() {
-                function traverse(element, depth, dump) {
-                    if (!element) return;
-
-                    const indent = '  '.repeat(depth);
-                    const tagName = element.tagName.toLowerCase();
-                    const id = element.id ? `#${element.id}` : '';
-                    const classes = Array.from(element.classList);
-                    const class1 = classes.length > 0 ? `.${classes[0]}` : '.';
-                    const class2 = classes.length > 1 ? `.${classes[1]}` : '.';
-                    const classStr = `${class1}, ${class2}`;
-                    const text = element.textContent ? `: ${element.textContent.trim().substring(0, 20)}` : '';
-
-                    dump.push(`${indent}${tagName}, ${classStr}, ${id}, ${text}`);
-
-                    Array.from(element.children).forEach(child => traverse(child, depth + 1, dump));
-                }
-
-                const dumpResult = [];
-                traverse(document.documentElement, 0, dumpResult);
-                const resultString = dumpResult.join('\\n');
+    @Override
+    public void onSoftReloaded() {
+        runOnUiThread(() -> {
+            if (isDestroyed()) return;
+            Log.d("PlayerActivity", "Soft reload resumed playback at " + progress + "s.");
+            Diagnostics.getInstance().record("PlayerActivity", "Soft reload resumed playback at " + progress + "s.");
+            handler.removeCallbacks(softReloadFallback);
+            progressAltered = false;
+        });
+    }
 
-                if (typeof AndroidBridge !== 'undefined') {
-                    AndroidBridge.onDomDump(resultString);
-                } else {
-                    console.log(resultString);
-                }
-                return true;
-            };
-        """;
-        view.evaluateJavascript(script, null);
-        view.evaluateJavascript("window.setupProgressUpdater();", null);
+    /**
+     * Fallback for WebViews without document start scripts: evaluates the control script in the
+     * current page. It is the same asset WebViewPool registers otherwise.
+     */
+    private void injectPlayerControlScript(WebView view) {
+        view.evaluateJavascript(WebViewPool.getControlScript(this), null);
+        isScriptInjected = true;
     }
 
     public void doChangeConfiguration(int orientation) {
@@ -790,9 +738,9 @@ public class PlayerActivity extends AppCompatActivity {
 
             ensureVideoMaximized();
 
-            android.view.ViewGroup.LayoutParams layoutParams = youtubeWebView.getLayoutParams();
+            android.view.ViewGroup.LayoutParams layoutParams = webViewContainer.getLayoutParams();
             layoutParams.height = android.view.ViewGroup.LayoutParams.MATCH_PARENT;
-            youtubeWebView.setLayoutParams(layoutParams);
+            webViewContainer.setLayoutParams(layoutParams);
 
         } else if (orientation == Configuration.ORIENTATION_PORTRAIT) {
             Log.d("PlayerActivity", "Switched to Portrait");
@@ -803,9 +751,9 @@ public class PlayerActivity extends AppCompatActivity {
 
             ensureVideoMaximized();
 
-            android.view.ViewGroup.LayoutParams layoutParams = youtubeWebView.getLayoutParams();
+            android.view.ViewGroup.LayoutParams layoutParams = webViewContainer.getLayoutParams();
             layoutParams.height = 0;
-            youtubeWebView.setLayoutParams(layoutParams);
+            webViewContainer.setLayoutParams(layoutParams);
         }
     }
 
@@ -0,0 +1,140 @@
+package com.channelplayer;
+
+import android.net.Uri;
+import android.webkit.WebResourceRequest;
+import android.webkit.WebResourceResponse;
+
+import androidx.annotation.Nullable;
+
+import com.channelplayer.cache.ConfigSnapshot;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decides which watch-page sub-resources the player WebView never needs: ads, tracking
+ * beacons and the artwork of everything the player hides (comments, related videos).
+ * Blocked requests are answered locally with an empty response and never reach the network.
+ *
+ * A rule is one of:
+ *   "example.com"        - any request to the host or one of its subdomains
+ *   "/path/part"         - any request whose path contains the text
+ *   "example.com/prefix" - requests to the host whose path starts with "/prefix"
+ * The rules come from the "blocked_requests" list of the config file, or DEFAULT_RULES if
+ * the file has none. Requests for the page itself or for anything whose path names the
+ * video being played are never blocked.
+ * Instances are immutable apart from the counter and may be used from any thread, as
+ * shouldInterceptRequest is called on a WebView background thread.
+ */
+public final class RequestBlocker {
+
+    public static final List<String> DEFAULT_RULES = Collections.unmodifiableList(Arrays.asList(
+            // Ads
+            "doubleclick.net",
+            "googleadservices.com",
+            "googlesyndication.com",
+            "/pagead/",
+            "/api/stats/ads",
+            // Tracking
+            "google-analytics.com",
+            "googletagmanager.com",
+            "/ptracking",
+            "/api/stats/atr",
+            "/youtubei/v1/log_event",
+            "/generate_204",
+            // Avatars of channels and commenters
+            "yt3.ggpht.com",
+            // Thumbnails and animated previews of related videos
+            "i.ytimg.com/vi/",
+            "i.ytimg.com/vi_webp/",
+            "i.ytimg.com/an_webp/"
+    ));
+
+    private final String[] hostRules;
+    private final String[] pathRules;
+    private final String[] hostPathRules; // Pairs of host and path prefix
+    private final AtomicInteger blockedCount = new AtomicInteger();
+
+    private RequestBlocker(List<String> rules) {
+        List<String> hosts = new ArrayList<>();
+        List<String> paths = new ArrayList<>();
+        List<String> hostPaths = new ArrayList<>();
+        for (String rule : rules) {
+            rule = rule.trim();
+            int slash = rule.indexOf('/');
+            if (rule.isEmpty()) {
+                continue;
+            } else if (slash < 0) {
+                hosts.add(rule);
+            } else if (slash == 0) {
+                paths.add(rule);
+            } else {
+                hostPaths.add(rule.substring(0, slash));
+                hostPaths.add(rule.substring(slash));
+            }
+        }
+        hostRules = hosts.toArray(new String[0]);
+        pathRules = paths.toArray(new String[0]);
+        hostPathRules = hostPaths.toArray(new String[0]);
+    }
+
+    /**
+     * @param config The current config, or null if it is not loaded yet.
+     */
+    public static RequestBlocker fromConfig(@Nullable ConfigSnapshot config) {
+        if (config != null && config.blockedRequestRules != null) {
+            return new RequestBlocker(config.blockedRequestRules);
+        }
+        return new RequestBlocker(DEFAULT_RULES);
+    }
+
+    /**
+     * To be called from WebViewClient.shouldInterceptRequest.
+     * @param videoId The video being played; requests about it always go through.
+     * @return An empty response if the request is blocked, null to let the WebView load it.
+     */
+    @Nullable
+    public WebResourceResponse intercept(WebResourceRequest request, String videoId) {
+        if (request.isForMainFrame() || !shouldBlock(request.getUrl(), videoId)) {
+            return null;
+        }
+        blockedCount.incrementAndGet();
+        return new WebResourceResponse("text/plain", "utf-8", 204, "No Content",
+                Collections.emptyMap(), new ByteArrayInputStream(new byte[0]));
+    }
+
+    public boolean shouldBlock(Uri url, String videoId) {
+        String host = url.getHost();
+        String path = url.getPath();
+        if (host == null) return false;
+        if (path == null) path = "";
+        if (videoId != null && !videoId.isEmpty() && path.contains(videoId)) return false;
+
+        for (String rule : hostRules) {
+            if (matchesHost(host, rule)) return true;
+        }
+        for (String rule : pathRules) {
+            if (path.contains(rule)) return true;
+        }
+        for (int i = 0; i < hostPathRules.length; i += 2) {
+            if (matchesHost(host, hostPathRules[i]) && path.startsWith(hostPathRules[i + 1])) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Number of requests blocked so far.
+     */
+    public int getBlockedCount() {
+        return blockedCount.get();
+    }
+
+    private static boolean matchesHost(String host, String rule) {
+        return host.equals(rule)
+                || (host.endsWith(rule) && host.charAt(host.length() - rule.length() - 1) == '.');
+    }
+}
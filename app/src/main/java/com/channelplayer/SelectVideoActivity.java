@@ -2,6 +2,7 @@ package com.channelplayer;
 
 import android.content.Intent;
 import android.os.Bundle;
+import android.os.Looper;
 import android.util.Log;
 
 import androidx.activity.result.ActivityResultLauncher;
@@ -14,17 +15,17 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.channelplayer.cache.ConfigRepository;
+import com.channelplayer.cache.RatingRepository;
 import com.channelplayer.cache.VideoItem;
+import com.channelplayer.cache.VideoRepository;
 import com.channelplayer.cache.VideoViewModel;
 import com.channelplayer.cache.VideoViewModelFactory;
 import com.google.android.gms.auth.api.signin.GoogleSignIn;
 import com.google.android.gms.auth.api.signin.GoogleSignInAccount;
-import com.google.api.client.googleapis.extensions.android.gms.auth.GoogleAccountCredential;
-import com.google.api.client.http.javanet.NetHttpTransport;
-import com.google.api.client.json.gson.GsonFactory;
 import com.google.api.services.youtube.YouTube;
 
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.List;
 
 public class SelectVideoActivity extends AppCompatActivity implements VideoAdapter.OnVideoClickListener {
 
@@ -36,15 +37,16 @@ public class SelectVideoActivity extends AppCompatActivity implements VideoAdapt
     private String channelId;
     private GoogleSignInAccount googleSignInAccount;
     public ConfigRepository configRepository;
+    private RatingRepository ratingRepository;
+    private YouTube ratingService;
+    private LinearLayoutManager layoutManager;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_select_video);
 
-        configRepository = ConfigRepository.getInstance(this, () -> {
-            Log.i(TAG, "Config loaded successfully.");
-        });
+        configRepository = ChannelPlayerApplication.from(this).getConfigRepository();
 
         channelId = getIntent().getStringExtra(CHANNEL_ID);
         if (channelId == null || channelId.isEmpty()) {
@@ -64,16 +66,26 @@ public class SelectVideoActivity extends AppCompatActivity implements VideoAdapt
         setupRecyclerView();
         setupSearchView();
 
-        // 2. Create the YouTube service instance
-        YouTube youtubeService = createYouTubeService(googleSignInAccount);
+        // 2. The repository is shared with every other video list of this account
+        VideoRepository repository = ChannelPlayerApplication.from(this)
+                .getVideoRepository(googleSignInAccount.getAccount());
+        // videos.getRating needs the same scope the player uses for rating.
+        ratingService = YouTubeServiceFactory.create(this, googleSignInAccount.getAccount(), YouTubeServiceFactory.SCOPE_FORCE_SSL);
+        ratingRepository = RatingRepository.getInstance(this);
 
         // 3. Initialize ViewModel using the Factory to pass dependencies
-        VideoViewModelFactory factory = new VideoViewModelFactory(getApplication(), youtubeService, configRepository);
+        VideoViewModelFactory factory = new VideoViewModelFactory(getApplication(), repository);
         videoViewModel = new ViewModelProvider(this, factory).get(VideoViewModel.class);
 
         // 4. Observe LiveData for video list changes
         videoViewModel.fetchInitialVideos(channelId);
         observeVideoList();
+
+        // 5. Build the player's WebView once this screen has drawn, so opening a video is quick
+        Looper.myQueue().addIdleHandler(() -> {
+            WebViewPool.prewarm(this);
+            return false;
+        });
     }
 
     private void observeVideoList() {
@@ -81,15 +93,33 @@ public class SelectVideoActivity extends AppCompatActivity implements VideoAdapt
             // This block now receives a List<Video> named 'videos'.
             if (videos != null) {
                 Log.d(TAG, "Updating UI with " + videos.size() + " videos from cache.");
-                videoAdapter.submitList(videos);
+                videoAdapter.submitList(videos, this::prefetchVisibleRatings);
             }
         });
     }
+
+    /**
+     * Fetches the ratings of the videos on screen in one call, so the player can show them
+     * right away.
+     */
+    private void prefetchVisibleRatings() {
+        int first = layoutManager.findFirstVisibleItemPosition();
+        int last = layoutManager.findLastVisibleItemPosition();
+        if (first == RecyclerView.NO_POSITION || last == RecyclerView.NO_POSITION) return;
+
+        List<VideoItem> items = videoAdapter.getCurrentList();
+        List<String> videoIds = new ArrayList<>();
+        for (int i = first; i <= last && i < items.size(); i++) {
+            videoIds.add(items.get(i).videoId);
+        }
+        ratingRepository.prefetch(ratingService, videoIds);
+    }
     private void setupRecyclerView() {
         RecyclerView recyclerView = findViewById(R.id.video_recycler_view);
-        LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        layoutManager = new LinearLayoutManager(this);
         recyclerView.setLayoutManager(layoutManager);
         recyclerView.setHasFixedSize(true);
+        ListViewPool.getInstance(this).attach(recyclerView, layoutManager);
 
         // The adapter should now extend ListAdapter
         videoAdapter = new VideoAdapter(this);
@@ -108,6 +138,13 @@ public class SelectVideoActivity extends AppCompatActivity implements VideoAdapt
                     videoViewModel.fetchNextPage(channelId);
                 }
             }
+
+            @Override
+            public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+                if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+                    prefetchVisibleRatings();
+                }
+            }
         });
     }
 
@@ -127,20 +164,6 @@ public class SelectVideoActivity extends AppCompatActivity implements VideoAdapt
         });
     }
 
-    private YouTube createYouTubeService(GoogleSignInAccount account) {
-        GoogleAccountCredential credential = GoogleAccountCredential.usingOAuth2(
-                this,
-                Collections.singleton("https://www.googleapis.com/auth/youtube.readonly"));
-        credential.setSelectedAccount(account.getAccount());
-
-        return new YouTube.Builder(
-                new NetHttpTransport(),
-                new GsonFactory(),
-                credential)
-                .setApplicationName(getString(R.string.app_name))
-                .build();
-    }
-
     // Define the launcher as a member variable
     private final ActivityResultLauncher<Intent> playerActivityResultLauncher = registerForActivityResult(
             new ActivityResultContracts.StartActivityForResult(),
@@ -161,9 +184,8 @@ public class SelectVideoActivity extends AppCompatActivity implements VideoAdapt
     public void onVideoClick(VideoItem item) {
         Intent intent = new Intent(this, PlayerActivity.class);
         intent.putExtra(PlayerActivity.EXTRA_VIDEO_ID, item.videoId);
-        // Pass the description from the clicked item.
-        // It will be fetched by the player if it's not already in the cache.
-        intent.putExtra(PlayerActivity.EXTRA_VIDEO_DESCRIPTION, item.description);
+        // Pass the title, plus the full description once the video has been enriched.
+        intent.putExtra(PlayerActivity.EXTRA_VIDEO_DESCRIPTION, item.getDisplayDescription());
         intent.putExtra(PlayerActivity.EXTRA_ACCOUNT_NAME, googleSignInAccount.getAccount().name);
         playerActivityResultLauncher.launch(intent);
     }
@@ -0,0 +1,131 @@
+package com.channelplayer;
+
+import android.app.Application;
+import android.database.Cursor;
+import android.os.SystemClock;
+import android.util.Log;
+import android.webkit.WebSettings;
+
+import com.channelplayer.cache.AppDatabase;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Warms up the expensive singletons the first screens need, in parallel, at process start:
+ * the Room database, the YouTube API HTTP stack (plus DNS and TLS to the hosts we talk to)
+ * and the WebView provider.
+ * Every step is timed and logged under the "StartupInitializer" tag.
+ */
+public final class StartupInitializer {
+    private static final String TAG = "StartupInitializer";
+
+    private static final String[] PRECONNECT_URLS = {
+            "https://www.googleapis.com/",
+            "https://m.youtube.com/",
+    };
+    private static final int PRECONNECT_TIMEOUT_MS = 5000;
+
+    private static final Map<String, Long> timings = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    private StartupInitializer() {}
+
+    /**
+     * Starts all warm-up steps in the background and returns immediately.
+     */
+    public static void start(Application application) {
+        final long startedAt = SystemClock.elapsedRealtime();
+        AppScheduler scheduler = AppScheduler.getInstance();
+        // Ahead of everything else on their lanes: the first screen is waiting for them.
+        // The database and the WebView warm up on their own lane, so they neither delay the
+        // config load on DB_WRITE nor the first API calls.
+        Executor warmUp = scheduler.executor(AppScheduler.Lane.MAINTENANCE, AppScheduler.Priority.HIGH);
+        Executor network = scheduler.executor(AppScheduler.Lane.UI_NETWORK, AppScheduler.Priority.HIGH);
+
+        CompletableFuture<?>[] steps = new CompletableFuture<?>[2 + PRECONNECT_URLS.length];
+        steps[0] = runTimed("database", warmUp, () -> warmUpDatabase(application));
+        steps[1] = runTimed("webview", warmUp, () -> WebSettings.getDefaultUserAgent(application));
+        for (int i = 0; i < PRECONNECT_URLS.length; i++) {
+            String url = PRECONNECT_URLS[i];
+            steps[2 + i] = runTimed("preconnect " + url, network, () -> preconnect(url));
+        }
+
+        CompletableFuture.allOf(steps).whenComplete((ignored, error) -> {
+            long total = SystemClock.elapsedRealtime() - startedAt;
+            timings.put("total", total);
+            Log.i(TAG, "Startup warm-up finished in " + total + " ms: " + getTimings());
+        });
+    }
+
+    /**
+     * Wall time of each finished step in milliseconds, in completion order.
+     */
+    public static Map<String, Long> getTimings() {
+        synchronized (timings) {
+            return new LinkedHashMap<>(timings);
+        }
+    }
+
+    private static CompletableFuture<Void> runTimed(String name, Executor executor, Runnable step) {
+        try {
+            return CompletableFuture.runAsync(() -> {
+                long begin = SystemClock.elapsedRealtime();
+                try (TraceRecorder.Span ignored = TraceRecorder.begin("Startup." + name)) {
+                    step.run();
+                } catch (RuntimeException e) {
+                    // A failed warm-up only means the first real use pays the cost instead.
+                    Log.w(TAG, "Warm-up step '" + name + "' failed", e);
+                }
+                long elapsed = SystemClock.elapsedRealtime() - begin;
+                timings.put(name, elapsed);
+                Log.i(TAG, name + " took " + elapsed + " ms");
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            // The lane is full; same as a failed step.
+            Log.w(TAG, "Warm-up step '" + name + "' was not started", e);
+            CompletableFuture<Void> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(e);
+            return rejected;
+        }
+    }
+
+    private static void warmUpDatabase(Application application) {
+        // Opening the database runs pending migrations; the query makes sure that happens now.
+        AppDatabase db = AppDatabase.getDatabase(application);
+        try (Cursor cursor = db.query("SELECT COUNT(*) FROM channels", null)) {
+            cursor.moveToFirst();
+        }
+    }
+
+    private static void preconnect(String url) {
+        // The YouTube client shares its transport and JSON parser process-wide; build them here.
+        YouTubeServiceFactory.getTransport();
+        YouTubeServiceFactory.getJsonFactory();
+
+        // A HEAD request resolves DNS and completes the TLS handshake. The platform keeps the
+        // connection alive in its pool, where NetHttpTransport will pick it up.
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+            connection.setRequestMethod("HEAD");
+            connection.setConnectTimeout(PRECONNECT_TIMEOUT_MS);
+            connection.setReadTimeout(PRECONNECT_TIMEOUT_MS);
+            int code = connection.getResponseCode();
+            // Draining the (empty) body is what returns the connection to the pool.
+            try (InputStream in = code < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+                if (in != null) {
+                    while (in.read() != -1) { /* drain */ }
+                }
+            }
+        } catch (IOException e) {
+            Log.d(TAG, "Pre-connect to " + url + " failed: " + e.getMessage());
+        }
+    }
+}
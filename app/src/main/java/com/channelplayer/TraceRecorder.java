@@ -0,0 +1,159 @@
+package com.channelplayer;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Process;
+import android.os.SystemClock;
+
+import androidx.annotation.WorkerThread;
+import androidx.tracing.Trace;
+
+import java.io.BufferedWriter;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Times the startup and playback paths. Every span is emitted as an androidx.tracing section,
+ * so it shows up in system traces, and is also kept in memory (the last MAX_SPANS of them), so
+ * export() can write a trace from any device. The export uses the Chrome JSON trace format,
+ * which Perfetto UI and chrome://tracing open directly.
+ *
+ * Usage:
+ *   try (TraceRecorder.Span ignored = TraceRecorder.begin("Class.method")) { ... }
+ * or, for spans that end on another thread or callback, beginAsync/endAsync with a cookie.
+ */
+public final class TraceRecorder {
+
+    private static final int MAX_SPANS = 4000;
+
+    private static final class Record {
+        final String name;
+        final long startMicros;
+        final long durationMicros;
+        final int threadId;     // 0 for async spans
+        final int cookie;
+
+        Record(String name, long startMicros, long durationMicros, int threadId, int cookie) {
+            this.name = name;
+            this.startMicros = startMicros;
+            this.durationMicros = durationMicros;
+            this.threadId = threadId;
+            this.cookie = cookie;
+        }
+    }
+
+    /**
+     * A synchronous span; close it on the thread that began it.
+     */
+    public static final class Span implements AutoCloseable {
+        private final String name;
+        private final long startNanos;
+
+        private Span(String name) {
+            this.name = name;
+            this.startNanos = SystemClock.elapsedRealtimeNanos();
+            Trace.beginSection(name);
+        }
+
+        @Override
+        public void close() {
+            Trace.endSection();
+            long now = SystemClock.elapsedRealtimeNanos();
+            add(new Record(name, startNanos / 1000, (now - startNanos) / 1000, Process.myTid(), 0));
+        }
+    }
+
+    private static final ArrayDeque<Record> records = new ArrayDeque<>();
+    private static final Map<String, Long> asyncStarts = new ConcurrentHashMap<>();
+    private static final Map<String, Boolean> onceNames = new ConcurrentHashMap<>();
+
+    private TraceRecorder() {}
+
+    public static Span begin(String name) {
+        return new Span(name);
+    }
+
+    public static void beginAsync(String name, int cookie) {
+        Trace.beginAsyncSection(name, cookie);
+        asyncStarts.put(name + '#' + cookie, SystemClock.elapsedRealtimeNanos());
+    }
+
+    public static void endAsync(String name, int cookie) {
+        Long start = asyncStarts.remove(name + '#' + cookie);
+        if (start == null) return;
+        Trace.endAsyncSection(name, cookie);
+        long now = SystemClock.elapsedRealtimeNanos();
+        add(new Record(name, start / 1000, (now - start) / 1000, 0, cookie));
+    }
+
+    /**
+     * Records a span from the start of the process until now, once per process and name.
+     * It is not visible in system traces, which already show process start themselves.
+     */
+    public static void markSinceProcessStart(String name) {
+        if (onceNames.putIfAbsent(name, Boolean.TRUE) != null) return;
+        long startMicros = Process.getStartElapsedRealtime() * 1000;
+        long nowMicros = SystemClock.elapsedRealtimeNanos() / 1000;
+        add(new Record(name, startMicros, nowMicros - startMicros, 0, name.hashCode()));
+    }
+
+    private static void add(Record record) {
+        synchronized (records) {
+            if (records.size() == MAX_SPANS) {
+                records.removeFirst();
+            }
+            records.addLast(record);
+        }
+    }
+
+    /**
+     * Writes the recorded spans as a Chrome JSON trace.
+     */
+    @WorkerThread
+    public static void export(Context context, Uri uri) throws IOException {
+        List<Record> snapshot;
+        synchronized (records) {
+            snapshot = new ArrayList<>(records);
+        }
+        int pid = Process.myPid();
+
+        try (OutputStream out = context.getContentResolver().openOutputStream(uri, "wt")) {
+            if (out == null) throw new FileNotFoundException("Cannot open " + uri);
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            writer.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+            boolean first = true;
+            for (Record record : snapshot) {
+                if (!first) writer.write(",\n");
+                first = false;
+                if (record.threadId != 0) {
+                    writeEvent(writer, record.name, "X", record.startMicros, pid, record.threadId,
+                            ",\"dur\":" + record.durationMicros);
+                } else {
+                    String id = ",\"cat\":\"async\",\"id\":" + record.cookie;
+                    writeEvent(writer, record.name, "b", record.startMicros, pid, pid, id);
+                    writer.write(",\n");
+                    writeEvent(writer, record.name, "e", record.startMicros + record.durationMicros, pid, pid, id);
+                }
+            }
+            writer.write("]}\n");
+            writer.flush();
+        }
+    }
+
+    private static void writeEvent(Writer writer, String name, String phase, long timestampMicros,
+                                   int pid, int tid, String extra) throws IOException {
+        writer.write("{\"name\":\"");
+        writer.write(name.replace("\\", "\\\\").replace("\"", "\\\""));
+        writer.write("\",\"ph\":\"" + phase + "\",\"ts\":" + timestampMicros
+                + ",\"pid\":" + pid + ",\"tid\":" + tid + extra + "}");
+    }
+}
@@ -1,5 +1,6 @@
 package com.channelplayer;
 
+import android.content.Context;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -18,6 +19,8 @@ import com.squareup.picasso.Picasso;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
 
 /**
  * An adapter for displaying a list of videos. It uses ListAdapter for efficient
@@ -37,12 +40,26 @@ public class VideoAdapter extends ListAdapter<VideoItem, VideoAdapter.VideoViewH
         // Pass the DiffUtil callback to the super constructor.
         super(DIFF_CALLBACK);
         this.listener = listener;
+        setHasStableIds(true);
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        // The layout ID keeps this type distinct from ChannelAdapter's in the shared pool.
+        return R.layout.video_list_item;
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return ListViewPool.stableId(getItem(position).videoId);
     }
 
     @NonNull
     @Override
     public VideoViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        View v = LayoutInflater.from(parent.getContext())
+        // Inflate with the pool's context so the holder can outlive this activity.
+        Context itemContext = ListViewPool.getInstance(parent.getContext()).getItemContext();
+        View v = LayoutInflater.from(itemContext)
                 .inflate(R.layout.video_list_item, parent, false);
         return new VideoViewHolder(v);
     }
@@ -54,24 +71,41 @@ public class VideoAdapter extends ListAdapter<VideoItem, VideoAdapter.VideoViewH
         holder.bind(currentItem, listener);
     }
 
+    @Override
+    public void onViewRecycled(@NonNull VideoViewHolder holder) {
+        super.onViewRecycled(holder);
+        // Recycled holders go to the app-wide pool; drop the reference to this screen's listener.
+        holder.itemView.setOnClickListener(null);
+    }
+
     /**
      * Override submitList to keep a copy of the original list for filtering.
      */
     @Override
     public void submitList(List<VideoItem> list) {
+        submitList(list, null);
+    }
+
+    /**
+     * Same as submitList(list), running commitCallback once the list is displayed.
+     */
+    @Override
+    public void submitList(List<VideoItem> list, Runnable commitCallback) {
         // Keep a copy of the master list.
         this.originalList = list == null ? new ArrayList<>() : new ArrayList<>(list);
-        super.submitList(this.originalList);
+        super.submitList(this.originalList, commitCallback);
     }
 
     public static class VideoViewHolder extends RecyclerView.ViewHolder {
         public final ImageView videoThumbnail;
         public final TextView videoDescription;
+        public final TextView videoDuration;
 
         public VideoViewHolder(View v) {
             super(v);
             videoThumbnail = v.findViewById(R.id.video_thumbnail);
             videoDescription = v.findViewById(R.id.video_title);
+            videoDuration = v.findViewById(R.id.video_duration);
         }
 
         public void bind(final VideoItem item, final OnVideoClickListener listener) {
@@ -79,11 +113,32 @@ public class VideoAdapter extends ListAdapter<VideoItem, VideoAdapter.VideoViewH
             videoDescription.setText(item.description);
             if (item.thumbnailUrl != null && !item.thumbnailUrl.isEmpty()) {
                 Picasso.get().load(item.thumbnailUrl).into(videoThumbnail);
+            } else {
+                // Holders are shared across screens; don't show the previous item's thumbnail.
+                Picasso.get().cancelRequest(videoThumbnail);
+                videoThumbnail.setImageDrawable(null);
             }
+            String duration = formatDuration(item);
+            videoDuration.setText(duration);
+            videoDuration.setVisibility(duration == null ? View.GONE : View.VISIBLE);
             itemView.setOnClickListener(v -> listener.onVideoClick(item));
         }
     }
 
+    /**
+     * Formats the enriched length as "m:ss" or "h:mm:ss", "LIVE" for live streams, or null if
+     * the length is not known yet.
+     */
+    static String formatDuration(VideoItem item) {
+        if ("live".equals(item.liveBroadcastContent)) return "LIVE";
+        int seconds = item.durationSeconds;
+        if (seconds <= 0) return null;
+        if (seconds >= 3600) {
+            return String.format(Locale.ROOT, "%d:%02d:%02d", seconds / 3600, seconds / 60 % 60, seconds % 60);
+        }
+        return String.format(Locale.ROOT, "%d:%02d", seconds / 60, seconds % 60);
+    }
+
     /**
      * This callback is the magic behind ListAdapter. It tells the adapter how to
      * efficiently calculate changes between two lists.
@@ -98,8 +153,10 @@ public class VideoAdapter extends ListAdapter<VideoItem, VideoAdapter.VideoViewH
         @Override
         public boolean areContentsTheSame(@NonNull VideoItem oldItem, @NonNull VideoItem newItem) {
             // Check if the visual content has changed
-            return oldItem.description.equals(newItem.description) &&
-                    oldItem.thumbnailUrl.equals(newItem.thumbnailUrl);
+            return Objects.equals(oldItem.description, newItem.description) &&
+                    Objects.equals(oldItem.thumbnailUrl, newItem.thumbnailUrl) &&
+                    oldItem.durationSeconds == newItem.durationSeconds &&
+                    Objects.equals(oldItem.liveBroadcastContent, newItem.liveBroadcastContent);
         }
     };
 
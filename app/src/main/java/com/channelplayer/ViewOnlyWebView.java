@@ -3,6 +3,7 @@ package com.channelplayer;
 
 import android.annotation.SuppressLint;
 import android.content.Context;
+import android.graphics.Rect;
 import android.util.AttributeSet;
 import android.util.Log;
 import android.view.MotionEvent;import android.webkit.WebView;
@@ -10,20 +11,15 @@ import android.view.MotionEvent;import android.webkit.WebView;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
-import org.json.JSONException;
-import org.json.JSONObject;
-
-import java.util.HashMap;
-import java.util.Map;
-
 public class ViewOnlyWebView extends WebView {
 
-    private JSONObject allowedRect = new JSONObject(new HashMap<String, Integer>() {{
-        put("left", 0);
-        put("top", 0);
-        put("width", 0);
-        put("height", 0);
-    }});
+    private static final int[] NO_REGIONS = new int[0];
+
+    // Regions that let touches through, packed as left, top, right, bottom per region.
+    // The array is never modified after it is published, so touch handling reads it without locks.
+    private volatile int[] allowedRegions = NO_REGIONS;
+    // Whether the current gesture started inside an allowed region.
+    private boolean passingGesture = false;
 
     // These constructors are needed to use the view in XML layouts
     public ViewOnlyWebView(@NonNull Context context) {
@@ -49,24 +45,30 @@ public class ViewOnlyWebView extends WebView {
     @SuppressLint({"ClickableInScrollableWidget", "ClickableViewAccessibility"})
     @Override
     public boolean onTouchEvent(MotionEvent event) {
-        try {
-            if (
-                    allowedRect.getInt("width") > 0 && allowedRect.getInt("height") > 0 &&
-                    allowedRect.getInt("left") <= event.getX() && event.getX() <= allowedRect.getInt("left") + allowedRect.getInt("width") &&
-                    allowedRect.getInt("top") <= event.getY() && event.getY() <= allowedRect.getInt("top") + allowedRect.getInt("height")
-            ) {
-                return super.onTouchEvent(event);
-            }
-        } catch (JSONException e) {
-            throw new RuntimeException(e);
+        // The whole gesture goes to the page or nowhere, decided by where it starts.
+        if (event.getActionMasked() == MotionEvent.ACTION_DOWN) {
+            passingGesture = isAllowed((int) event.getX(), (int) event.getY());
+        }
+        if (passingGesture) {
+            return super.onTouchEvent(event);
         }
 
         // We consume the event and do nothing with it.
         // This effectively makes the WebView "read-only" to user touch input.
-        Log.i("ViewOnlyWebView", "onTouchEvent: Consumed touch event at " + event.getX() + ", " + event.getY() + ".");
+        // Nothing is logged here: this runs for every touch and children touch a lot.
         return true;
     }
 
+    private boolean isAllowed(int x, int y) {
+        int[] regions = allowedRegions;
+        for (int i = 0; i < regions.length; i += 4) {
+            if (x >= regions[i] && y >= regions[i + 1] && x < regions[i + 2] && y < regions[i + 3]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @SuppressLint("ClickableViewAccessibility")
     @Override
     public boolean performClick() {
@@ -74,15 +76,38 @@ public class ViewOnlyWebView extends WebView {
         return true;
     }
 
-    public void allowTouch(JSONObject rect) {
-        allowedRect = rect;
+    /**
+     * Blocks all touches again, e.g. before the WebView is handed to another player.
+     */
+    public void clearAllowedTouch() {
+        allowedRegions = NO_REGIONS;
+        passingGesture = false;
+    }
 
-        try {
-            if (rect.getInt("width") > 0 && rect.getInt("height") > 0) {
-                Log.i("ViewOnlyWebView", "allowTouch: Allowed touch at " + rect.toString() + ".");
-            }
-        } catch (JSONException e) {
-            throw new RuntimeException(e);
+    /**
+     * Lets touches inside the given rectangles (in view pixels) through to the page, replacing
+     * the previous ones in a single step. Empty rectangles are ignored.
+     */
+    public void allowTouch(Rect... rects) {
+        int count = 0;
+        for (Rect rect : rects) {
+            if (!rect.isEmpty()) count++;
+        }
+        if (count == 0) {
+            allowedRegions = NO_REGIONS;
+            return;
+        }
+
+        int[] regions = new int[count * 4];
+        int i = 0;
+        for (Rect rect : rects) {
+            if (rect.isEmpty()) continue;
+            regions[i++] = rect.left;
+            regions[i++] = rect.top;
+            regions[i++] = rect.right;
+            regions[i++] = rect.bottom;
+            Log.i("ViewOnlyWebView", "allowTouch: Allowed touch at " + rect.toShortString() + ".");
         }
+        allowedRegions = regions;
     }
 }
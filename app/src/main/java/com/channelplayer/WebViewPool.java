@@ -0,0 +1,165 @@
+package com.channelplayer;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.content.MutableContextWrapper;
+import android.util.Log;
+import android.view.ViewGroup;
+import android.webkit.WebSettings;
+import android.webkit.WebViewClient;
+
+import androidx.annotation.MainThread;
+import androidx.webkit.WebViewCompat;
+import androidx.webkit.WebViewFeature;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+/**
+ * Keeps one fully initialized ViewOnlyWebView alive between PlayerActivity launches, so a
+ * new player skips WebView construction and renderer start-up.
+ * The pooled WebView is built on a MutableContextWrapper: it runs on the application context
+ * while idle and on the owning activity's context while attached, so it never leaks a player.
+ * Where the WebView supports it, the player control script is registered once per WebView to
+ * run at document start on m.youtube.com, so it is in place before the page's own scripts.
+ * All methods must be called on the main thread.
+ */
+public final class WebViewPool {
+    private static final String TAG = "WebViewPool";
+    private static final String BLANK_URL = "about:blank";
+    private static final String CONTROL_SCRIPT_ASSET = "player_control.js";
+    private static final String CONTROL_SCRIPT_ORIGIN = "https://m.youtube.com";
+
+    /**
+     * A pooled WebView together with the bridge object registered on it.
+     */
+    public static final class Entry {
+        public final ViewOnlyWebView webView;
+        public final JsBridge bridge;
+        /** True if the control script runs on every page by itself; otherwise the player injects it. */
+        public final boolean scriptAtDocumentStart;
+        private final MutableContextWrapper context;
+
+        private Entry(MutableContextWrapper context, ViewOnlyWebView webView, JsBridge bridge,
+                      boolean scriptAtDocumentStart) {
+            this.context = context;
+            this.webView = webView;
+            this.bridge = bridge;
+            this.scriptAtDocumentStart = scriptAtDocumentStart;
+        }
+    }
+
+    private static Entry idle;
+    private static String controlScript;
+
+    private WebViewPool() {}
+
+    /**
+     * Creates the pooled WebView ahead of time, if there is none yet. Meant to run while the
+     * user is still choosing a video.
+     */
+    @MainThread
+    public static void prewarm(Context context) {
+        if (idle == null) {
+            long begin = System.currentTimeMillis();
+            idle = create(context.getApplicationContext());
+            Log.d(TAG, "Pre-warmed WebView in " + (System.currentTimeMillis() - begin) + " ms");
+        }
+    }
+
+    /**
+     * Hands out the idle WebView, or a new one if it is in use, attached to the activity's context.
+     */
+    @MainThread
+    public static Entry acquire(Context activityContext) {
+        Entry entry = idle;
+        idle = null;
+        if (entry == null) {
+            entry = create(activityContext.getApplicationContext());
+        }
+        entry.context.setBaseContext(activityContext);
+        entry.webView.onResume();
+        return entry;
+    }
+
+    /**
+     * Detaches the WebView from its player, resets it and keeps it for the next player.
+     */
+    @MainThread
+    public static void release(Entry entry) {
+        entry.bridge.setListener(null);
+        entry.webView.stopLoading();
+        entry.webView.setWebChromeClient(null);
+        entry.webView.setWebViewClient(new WebViewClient());
+        entry.webView.clearAllowedTouch();
+        ViewGroup parent = (ViewGroup) entry.webView.getParent();
+        if (parent != null) {
+            parent.removeView(entry.webView);
+        }
+        entry.context.setBaseContext(entry.context.getApplicationContext());
+
+        if (idle != null) {
+            // Another player was running at the same time; one spare WebView is enough.
+            entry.webView.destroy();
+            return;
+        }
+        // Unloading the page stops playback and frees the previous video's memory.
+        entry.webView.loadUrl(BLANK_URL);
+        entry.webView.clearHistory();
+        entry.webView.onPause();
+        idle = entry;
+    }
+
+    @SuppressLint({"SetJavaScriptEnabled", "JavascriptInterface"})
+    private static Entry create(Context appContext) {
+        MutableContextWrapper context = new MutableContextWrapper(appContext);
+        ViewOnlyWebView webView = new ViewOnlyWebView(context);
+        JsBridge bridge = new JsBridge();
+
+        WebSettings settings = webView.getSettings();
+        settings.setMediaPlaybackRequiresUserGesture(false);
+        settings.setJavaScriptEnabled(true);
+        settings.setDomStorageEnabled(true);
+        webView.addJavascriptInterface(bridge, "AndroidBridge");
+
+        boolean scriptAtDocumentStart = false;
+        if (WebViewFeature.isFeatureSupported(WebViewFeature.DOCUMENT_START_SCRIPT)) {
+            WebViewCompat.addDocumentStartJavaScript(webView, getControlScript(appContext),
+                    Collections.singleton(CONTROL_SCRIPT_ORIGIN));
+            scriptAtDocumentStart = true;
+        } else {
+            Log.w(TAG, "Document start scripts are not supported; the player will inject the script.");
+        }
+
+        // Starts the renderer process now rather than on the first real page load.
+        webView.loadUrl(BLANK_URL);
+        return new Entry(context, webView, bridge, scriptAtDocumentStart);
+    }
+
+    /**
+     * The player control script from the assets, read once per process. Indentation and
+     * whole-line comments are dropped, which shrinks it by about a third.
+     */
+    @MainThread
+    public static String getControlScript(Context context) {
+        if (controlScript == null) {
+            StringBuilder script = new StringBuilder();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    context.getAssets().open(CONTROL_SCRIPT_ASSET), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    if (line.isEmpty() || line.startsWith("//")) continue;
+                    script.append(line).append('\n');
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Missing asset " + CONTROL_SCRIPT_ASSET, e);
+            }
+            controlScript = script.toString();
+        }
+        return controlScript;
+    }
+}
@@ -0,0 +1,67 @@
+package com.channelplayer;
+
+import android.accounts.Account;
+import android.content.Context;
+
+import com.google.api.client.googleapis.extensions.android.gms.auth.GoogleAccountCredential;
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.services.youtube.YouTube;
+
+import java.util.Collections;
+
+/**
+ * Builds YouTube Data API clients. All clients share one HTTP transport and JSON factory,
+ * which are thread safe and expensive enough to be worth creating once per process.
+ */
+public final class YouTubeServiceFactory {
+
+    public static final String SCOPE_READONLY = "https://www.googleapis.com/auth/youtube.readonly";
+    public static final String SCOPE_FORCE_SSL = "https://www.googleapis.com/auth/youtube.force-ssl";
+
+    private static volatile HttpTransport transport;
+    private static volatile JsonFactory jsonFactory;
+
+    private YouTubeServiceFactory() {}
+
+    public static HttpTransport getTransport() {
+        if (transport == null) {
+            synchronized (YouTubeServiceFactory.class) {
+                if (transport == null) {
+                    transport = new NetHttpTransport();
+                }
+            }
+        }
+        return transport;
+    }
+
+    public static JsonFactory getJsonFactory() {
+        if (jsonFactory == null) {
+            synchronized (YouTubeServiceFactory.class) {
+                if (jsonFactory == null) {
+                    jsonFactory = GsonFactory.getDefaultInstance();
+                }
+            }
+        }
+        return jsonFactory;
+    }
+
+    /**
+     * Creates a YouTube client authorized for the given account.
+     * @param context Any context; only the application context is retained.
+     * @param account The signed-in Google account.
+     * @param scope One of the SCOPE_ constants.
+     */
+    public static YouTube create(Context context, Account account, String scope) {
+        Context appContext = context.getApplicationContext();
+        GoogleAccountCredential credential = GoogleAccountCredential.usingOAuth2(
+                appContext, Collections.singleton(scope));
+        credential.setSelectedAccount(account);
+
+        return new YouTube.Builder(getTransport(), getJsonFactory(), credential)
+                .setApplicationName(appContext.getString(R.string.app_name))
+                .build();
+    }
+}
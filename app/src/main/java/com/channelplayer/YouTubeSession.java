@@ -0,0 +1,72 @@
+package com.channelplayer;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+import android.webkit.CookieManager;
+
+import androidx.annotation.MainThread;
+
+/**
+ * Remembers that the WebView is signed in to YouTube, so the player can skip the
+ * accounts.google.com hop before each video.
+ * The cookies themselves say nothing about which account they belong to, so a session only
+ * counts as valid for the account that last went through the sign-in page, for at most
+ * SESSION_TTL_MS, and only while YouTube's session cookie is still in the CookieManager.
+ */
+public final class YouTubeSession {
+    private static final String TAG = "YouTubeSession";
+    private static final String PREFS_NAME = "ChannelPlayerPrefs";
+    private static final String KEY_ACCOUNT = "sessionAccount";
+    private static final String KEY_SIGNED_IN_AT = "sessionSignedInAt";
+
+    private static final long SESSION_TTL_MS = 6 * 60 * 60 * 1000L;
+    private static final String YOUTUBE_URL = "https://m.youtube.com";
+    // Set by Google sign-in for youtube.com; gone once the session ends.
+    private static final String[] SESSION_COOKIES = {"SAPISID=", "__Secure-3PAPISID="};
+
+    private YouTubeSession() {}
+
+    /**
+     * True if the WebView has a YouTube session for this account that was confirmed recently.
+     */
+    @MainThread
+    public static boolean isSignedIn(Context context, String accountName) {
+        SharedPreferences prefs = getPrefs(context);
+        if (!accountName.equals(prefs.getString(KEY_ACCOUNT, null))) return false;
+
+        long age = System.currentTimeMillis() - prefs.getLong(KEY_SIGNED_IN_AT, 0);
+        if (age < 0 || age > SESSION_TTL_MS) return false;
+
+        return hasSessionCookie();
+    }
+
+    /**
+     * To be called when the sign-in page has finished loading. Remembers the session if the
+     * sign-in produced one.
+     */
+    @MainThread
+    public static void onSignInFinished(Context context, String accountName) {
+        if (!hasSessionCookie()) {
+            Log.d(TAG, "No YouTube session after sign-in for " + accountName);
+            return;
+        }
+        getPrefs(context).edit()
+                .putString(KEY_ACCOUNT, accountName)
+                .putLong(KEY_SIGNED_IN_AT, System.currentTimeMillis())
+                .apply();
+    }
+
+    private static boolean hasSessionCookie() {
+        String cookies = CookieManager.getInstance().getCookie(YOUTUBE_URL);
+        if (cookies == null) return false;
+        for (String name : SESSION_COOKIES) {
+            if (cookies.startsWith(name) || cookies.contains("; " + name)) return true;
+        }
+        return false;
+    }
+
+    private static SharedPreferences getPrefs(Context context) {
+        return context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
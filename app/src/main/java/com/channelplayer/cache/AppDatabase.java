@@ -9,14 +9,20 @@ import androidx.room.Room;
 import androidx.room.RoomDatabase;
 import androidx.sqlite.db.SupportSQLiteDatabase;
 
+import com.channelplayer.TraceRecorder;
+
 import java.util.concurrent.CountDownLatch;
 
-@Database(entities = {VideoItem.class, ChannelInfo.class, HistoryInfo.class},
-        version = 4,
+@Database(entities = {VideoItem.class, ChannelInfo.class, HistoryInfo.class, RatingInfo.class,
+        PlaybackSessionInfo.class},
+        version = 7,
         exportSchema = true,
         autoMigrations = {
                 @AutoMigration(from = 2, to = 3, spec = MyAutoMigration.class),
-                @AutoMigration(from = 3, to = 4)
+                @AutoMigration(from = 3, to = 4),
+                @AutoMigration(from = 4, to = 5),
+                @AutoMigration(from = 5, to = 6),
+                @AutoMigration(from = 6, to = 7)
         }
 )
 public abstract class AppDatabase extends RoomDatabase {
@@ -24,6 +30,8 @@ public abstract class AppDatabase extends RoomDatabase {
     public abstract VideoDao videoDao();
     public abstract ChannelDao channelDao();
     public abstract HistoryDao historyDao();
+    public abstract RatingDao ratingDao();
+    public abstract PlaybackSessionDao playbackSessionDao();
 
     private static volatile AppDatabase INSTANCE;
 
@@ -31,10 +39,13 @@ public abstract class AppDatabase extends RoomDatabase {
         if (INSTANCE == null) {
             synchronized (AppDatabase.class) {
                 if (INSTANCE == null) {
-                    INSTANCE = Room.databaseBuilder(context.getApplicationContext(),
-                                    AppDatabase.class, "channel_player_database")
-                            .addAutoMigrationSpec(new MyAutoMigration())
-                            .build();
+                    // Only the first call builds the database; later calls are not worth a span.
+                    try (TraceRecorder.Span ignored = TraceRecorder.begin("AppDatabase.getDatabase")) {
+                        INSTANCE = Room.databaseBuilder(context.getApplicationContext(),
+                                        AppDatabase.class, "channel_player_database")
+                                .addAutoMigrationSpec(new MyAutoMigration())
+                                .build();
+                    }
                 }
             }
         }
@@ -0,0 +1,157 @@
+package com.channelplayer.cache;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * Keeps a resized copy of every channel avatar in app-private storage, so the channel list
+ * can render without network access.
+ * Files are named after the channel ID and a hash of the source URL: a changed thumbnailUrl
+ * maps to a new file name, which is how stale avatars are detected.
+ */
+public class ChannelAvatarStore {
+    private static final String TAG = "ChannelAvatarStore";
+    private static final String AVATAR_DIR = "channel_avatars";
+
+    // channel_list_item shows the icon at 48dp; 144px covers xxhdpi tablets.
+    private static final int AVATAR_SIZE_PX = 144;
+    private static final int TIMEOUT_MS = 15000;
+
+    private static volatile ChannelAvatarStore INSTANCE;
+
+    private final File avatarDir;
+
+    public static ChannelAvatarStore getInstance(final Context context) {
+        if (INSTANCE == null) {
+            synchronized (ChannelAvatarStore.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new ChannelAvatarStore(context.getApplicationContext());
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    private ChannelAvatarStore(Context appContext) {
+        avatarDir = new File(appContext.getFilesDir(), AVATAR_DIR);
+    }
+
+    /**
+     * Returns the stored avatar for the channel, or null if it was never downloaded or the
+     * channel's thumbnailUrl has changed since.
+     */
+    @Nullable
+    public File getCachedAvatar(ChannelInfo channel) {
+        if (channel.thumbnailUrl == null) return null;
+        File file = fileFor(channel.channelId, channel.thumbnailUrl);
+        return file.exists() ? file : null;
+    }
+
+    /**
+     * Downloads and stores the channel's avatar unless the current version is already on disk.
+     * Must be called from a background thread.
+     */
+    public void ensureAvatar(ChannelInfo channel) {
+        if (channel.thumbnailUrl == null || channel.thumbnailUrl.isEmpty()) return;
+        File target = fileFor(channel.channelId, channel.thumbnailUrl);
+        if (target.exists()) return;
+
+        if (!avatarDir.exists() && !avatarDir.mkdirs()) {
+            Log.e(TAG, "Could not create avatar directory: " + avatarDir);
+            return;
+        }
+
+        Bitmap bitmap = download(channel.thumbnailUrl);
+        if (bitmap == null) return;
+
+        // Write to a temp file first so a half-written avatar is never picked up by the adapter.
+        File temp = new File(avatarDir, target.getName() + ".tmp");
+        try (OutputStream out = new FileOutputStream(temp)) {
+            bitmap.compress(Bitmap.CompressFormat.PNG, 100, out);
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to store avatar for channel: " + channel.channelId, e);
+            temp.delete();
+            return;
+        } finally {
+            bitmap.recycle();
+        }
+
+        if (!temp.renameTo(target)) {
+            temp.delete();
+            return;
+        }
+        deleteOtherVersions(channel.channelId, target);
+        Log.d(TAG, "Stored avatar for channel: " + channel.channelId);
+    }
+
+    /**
+     * Removes avatars of channels that are no longer in the config.
+     */
+    public void removeAvatars(Iterable<String> channelIds) {
+        for (String channelId : channelIds) {
+            deleteOtherVersions(channelId, null);
+        }
+    }
+
+    private File fileFor(String channelId, String url) {
+        return new File(avatarDir, channelId + "_" + Integer.toHexString(url.hashCode()) + ".png");
+    }
+
+    private void deleteOtherVersions(String channelId, @Nullable File keep) {
+        File[] files = avatarDir.listFiles((dir, name) -> name.startsWith(channelId + "_"));
+        if (files == null) return;
+        for (File file : files) {
+            if (!file.equals(keep)) {
+                file.delete();
+            }
+        }
+    }
+
+    @Nullable
+    private Bitmap download(String url) {
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) new URL(url).openConnection();
+            connection.setConnectTimeout(TIMEOUT_MS);
+            connection.setReadTimeout(TIMEOUT_MS);
+            try (InputStream in = connection.getInputStream()) {
+                Bitmap original = BitmapFactory.decodeStream(in);
+                if (original == null) {
+                    Log.w(TAG, "Avatar is not a decodable image: " + url);
+                    return null;
+                }
+                if (original.getWidth() <= AVATAR_SIZE_PX && original.getHeight() <= AVATAR_SIZE_PX) {
+                    return original;
+                }
+                float scale = (float) AVATAR_SIZE_PX / Math.max(original.getWidth(), original.getHeight());
+                Bitmap scaled = Bitmap.createScaledBitmap(original,
+                        Math.round(original.getWidth() * scale),
+                        Math.round(original.getHeight() * scale),
+                        true);
+                if (scaled != original) {
+                    original.recycle();
+                }
+                return scaled;
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to download avatar: " + url, e);
+            return null;
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
+}
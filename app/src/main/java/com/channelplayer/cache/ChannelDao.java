@@ -38,6 +38,9 @@ public interface ChannelDao {
     @Query("SELECT * FROM channels WHERE handle = :handle")
     ChannelInfo getChannelByHandleSync(String handle);
 
+    @Query("SELECT * FROM channels WHERE channelId = :channelId")
+    ChannelInfo getChannelByIdSync(String channelId);
+
     @Query("DELETE FROM channels WHERE channelId IN (:channelsToRemove)")
     void deleteChannels(Set<String> channelsToRemove);
 }
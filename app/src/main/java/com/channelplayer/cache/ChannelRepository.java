@@ -5,7 +5,9 @@ import android.util.Log;
 
 import androidx.lifecycle.LiveData;
 
+import com.channelplayer.AppScheduler;
 import com.channelplayer.R;
+import com.channelplayer.TraceRecorder;
 import com.google.api.services.youtube.YouTube;
 import com.google.api.services.youtube.model.Channel;
 import com.google.api.services.youtube.model.ChannelListResponse;
@@ -20,21 +22,38 @@ import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
+/**
+ * The channel list, cached in the "channels" table and refreshed from the YouTube API.
+ * One instance per signed-in account is held by ChannelPlayerApplication and shared by all
+ * screens, together with its in-memory state: the handles resolved to channel IDs so far and
+ * the refresh in progress, if any.
+ */
 public class ChannelRepository {
     private static final String TAG = "ChannelRepository";
     private static final String USER_CHANNELS_FILENAME = "channel_handles.json";
+    private static final int MAX_IDS_PER_REQUEST = 50;
 
     private final ChannelDao channelDao;
     private final YouTube youtubeService;
     private final Executor executor;
     private final Application application;
     private final ConfigRepository configRepository;
+    private final ChannelAvatarStore avatarStore;
+    private final LiveData<List<ChannelInfo>> cachedChannels;
+    // Handle to channel ID; survives channels dropping out of the table.
+    private final Map<String, String> resolvedHandles = new ConcurrentHashMap<>();
+    // The refresh queued or running, so callers in the meantime do not queue another.
+    private CompletableFuture<Void> refresh;
 
     public ChannelRepository(Application application, YouTube youtubeService, ConfigRepository configRepository) {
         AppDatabase db = AppDatabase.getDatabase(application);
@@ -42,7 +61,10 @@ public class ChannelRepository {
         this.channelDao = db.channelDao();
         this.youtubeService = youtubeService;
         this.configRepository = configRepository;
-        this.executor = Executors.newSingleThreadExecutor();
+        this.avatarStore = ChannelAvatarStore.getInstance(application);
+        this.cachedChannels = channelDao.getAllChannels();
+        this.executor = AppScheduler.getInstance().serialExecutor(
+                AppScheduler.Lane.UI_NETWORK, AppScheduler.Priority.NORMAL);
 
         executor.execute(this::setupUserChannelsFile);
     }
@@ -82,19 +104,42 @@ public class ChannelRepository {
 
     /**
      * Returns a LiveData list of all channels from the database.
-     * It also triggers a background refresh to ensure data is up-to-date.
+     * It also revalidates, in the background, the channels whose data is older than the
+     * configured TTL; fresh channels cost no API call.
      */
     public LiveData<List<ChannelInfo>> getAllChannels() {
-        // Immediately return the LiveData from the database.
-        LiveData<List<ChannelInfo>> cachedChannels = channelDao.getAllChannels();
+        refresh(false);
+        // The same LiveData for every caller; Room queries it once for all observers.
+        return cachedChannels;
+    }
 
-        // Start a background task to refresh the channel data from the network.
-        executor.execute(this::refreshChannelsFromNetwork);
+    /**
+     * Revalidates the channels in the background once the config is available. Until then the
+     * cached list is shown as is.
+     * @param force Revalidate every channel, however fresh, e.g. on pull-to-refresh.
+     * @return Completes when the refresh has finished, successfully or not.
+     */
+    public synchronized CompletableFuture<Void> refresh(boolean force) {
+        if (refresh != null && !refresh.isDone()) {
+            if (!force) return refresh;
+            // The pending refresh may skip fresh channels; revalidate everything after it.
+            refresh = refresh.handle((ignored, error) -> null)
+                    .thenCompose(ignored -> configRepository.whenLoaded())
+                    .thenAcceptAsync(config -> refreshChannelsFromNetwork(config, true), executor);
+            return refresh;
+        }
+        refresh = configRepository.whenLoaded()
+                .thenAcceptAsync(config -> refreshChannelsFromNetwork(config, force), executor);
+        return refresh;
+    }
 
-        return cachedChannels;
+    private void refreshChannelsFromNetwork(ConfigSnapshot config, boolean force) {
+        try (TraceRecorder.Span ignored = TraceRecorder.begin("ChannelRepository.refreshChannelsFromNetwork")) {
+            revalidateChannels(config, force);
+        }
     }
 
-    private void refreshChannelsFromNetwork() {
+    private void revalidateChannels(ConfigSnapshot config, boolean force) {
         List<ChannelInfo> channelsToInsert = new ArrayList<>();
 
         List<ChannelInfo> allChannels = channelDao.getAllChannelsSync();
@@ -103,55 +148,110 @@ public class ChannelRepository {
             channelsToRemove.add(channel.channelId);
         }
 
-        for (String handle : configRepository.getChannelHandles()) {
+        long staleBefore = force ? Long.MAX_VALUE : System.currentTimeMillis() - config.channelTtlMillis;
+        // Channel ID to handle, and to the cached data if there is any, of the channels to fetch.
+        Map<String, String> staleHandles = new LinkedHashMap<>();
+        Map<String, ChannelInfo> staleCached = new HashMap<>();
+        // Kept as they are; only their avatars are checked.
+        List<ChannelInfo> freshChannels = new ArrayList<>();
+
+        for (String handle : config.channelHandles) {
             try {
                 // Check if we already have this channel and its ID.
                 ChannelInfo cached = channelDao.getChannelByHandleSync(handle);
-                String channelId = (cached != null) ? cached.channelId : getChannelIdFromHandle(handle);
-
+                String channelId = (cached != null) ? cached.channelId : resolvedHandles.get(handle);
+                if (channelId == null) {
+                    channelId = getChannelIdFromHandle(handle);
+                }
                 if (channelId == null) {
                     Log.w(TAG, "Skipping handle with no discoverable channel ID: " + handle);
                     continue;
                 }
+                resolvedHandles.put(handle, channelId);
 
-                if (cached != null &&
-                        cached.title != null && cached.title.length() > 0 &&
-                        cached.thumbnailUrl != null) {
+                if (cached != null) {
                     channelsToRemove.remove(cached.channelId);
-                    channelsToInsert.add(cached);
-                    continue;
+                    if (cached.title != null && cached.title.length() > 0 &&
+                            cached.thumbnailUrl != null && cached.fetchedAt >= staleBefore) {
+                        freshChannels.add(cached);
+                        continue;
+                    }
+                    staleCached.put(channelId, cached);
                 }
+                staleHandles.put(channelId, handle);
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to resolve channel handle: " + handle, e);
+            }
+        }
 
-                // Fetch full channel details using the ID
+        if (staleHandles.isEmpty() && channelsToRemove.isEmpty()) {
+            Log.d(TAG, "All " + allChannels.size() + " channels are fresh; nothing to refresh.");
+            ensureAvatars(freshChannels);
+            return;
+        }
+
+        // Fetch full channel details, up to 50 channels per call.
+        List<String> staleIds = new ArrayList<>(staleHandles.keySet());
+        for (int i = 0; i < staleIds.size(); i += MAX_IDS_PER_REQUEST) {
+            List<String> batch = staleIds.subList(i, Math.min(i + MAX_IDS_PER_REQUEST, staleIds.size()));
+            Map<String, Channel> found = new HashMap<>();
+            try {
                 YouTube.Channels.List request = youtubeService.channels().list(Collections.singletonList("snippet"));
-                request.setId(Collections.singletonList(channelId));
+                request.setId(batch);
+                request.setMaxResults((long) MAX_IDS_PER_REQUEST);
                 ChannelListResponse response = request.execute();
-
-                if (response.getItems() != null && !response.getItems().isEmpty()) {
-                    Channel channel = response.getItems().get(0);
-
-                    // Create ChannelInfo object to cache
-                    ChannelInfo info = new ChannelInfo();
-                    info.channelId = channel.getId();
-                    info.handle = handle; // Store the original handle
-                    info.title = channel.getSnippet().getTitle();
-                    info.thumbnailUrl = channel.getSnippet().getThumbnails().getDefault().getUrl();
-                    info.fetchedAt = System.currentTimeMillis();
-
-                    if (cached == null) {
-                        channelsToRemove.remove(info.channelId);
+                if (response.getItems() != null) {
+                    for (Channel channel : response.getItems()) {
+                        found.put(channel.getId(), channel);
                     }
-                    channelsToInsert.add(info);
                 }
             } catch (IOException e) {
-                Log.e(TAG, "Failed to refresh channel data for handle: " + handle, e);
+                Log.e(TAG, "Failed to refresh channel data for " + batch.size() + " channels", e);
+            }
+
+            long now = System.currentTimeMillis();
+            for (String channelId : batch) {
+                Channel channel = found.get(channelId);
+                if (channel == null) {
+                    // Keep what we have rather than losing the channel over a failed call.
+                    ChannelInfo cached = staleCached.get(channelId);
+                    if (cached != null) channelsToInsert.add(cached);
+                    continue;
+                }
+
+                // Create ChannelInfo object to cache
+                ChannelInfo info = new ChannelInfo();
+                info.channelId = channel.getId();
+                info.handle = staleHandles.get(channelId); // Store the original handle
+                info.title = channel.getSnippet().getTitle();
+                info.thumbnailUrl = channel.getSnippet().getThumbnails().getDefault().getUrl();
+                info.fetchedAt = now;
+                channelsToInsert.add(info);
             }
         }
+        Log.d(TAG, "Revalidated " + staleIds.size() + " of " + config.channelHandles.size() + " channels.");
 
-        // After fetching all, insert them into the database in one transaction.
-        if (!channelsToInsert.isEmpty()) {
+        // After fetching all, update the database in one go. Fresh channels are not
+        // written, so the list does not redraw for nothing. An empty handle list is more
+        // likely a broken config than a wish to drop every channel.
+        if (!config.channelHandles.isEmpty()) {
             channelDao.deleteChannels(channelsToRemove);
-            channelDao.insertAll(channelsToInsert);
+            avatarStore.removeAvatars(channelsToRemove);
+        }
+        channelDao.insertAll(channelsToInsert);
+
+        ensureAvatars(channelsToInsert);
+        ensureAvatars(freshChannels);
+    }
+
+    /**
+     * Avatars are stored locally so the channel list renders offline. Only channels whose
+     * thumbnailUrl changed, or whose avatar was never stored, e.g. because the download failed,
+     * hit the network here; for the others this is a file existence check.
+     */
+    private void ensureAvatars(List<ChannelInfo> channels) {
+        for (ChannelInfo channel : channels) {
+            avatarStore.ensureAvatar(channel);
         }
     }
 
@@ -3,18 +3,25 @@ package com.channelplayer.cache;
 import android.app.Application;
 import androidx.annotation.NonNull;
 import androidx.lifecycle.AndroidViewModel;import androidx.lifecycle.LiveData;
-import com.google.api.services.youtube.YouTube;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class ChannelViewModel extends AndroidViewModel {
     private final ChannelRepository mRepository;
 
-    public ChannelViewModel(@NonNull Application application, @NonNull YouTube youtubeService, @NonNull ConfigRepository configRepository) {
+    public ChannelViewModel(@NonNull Application application, @NonNull ChannelRepository repository) {
         super(application);
-        mRepository = new ChannelRepository(application, youtubeService, configRepository);
+        mRepository = repository;
     }
 
     public LiveData<List<ChannelInfo>> getAllChannels() {
         return mRepository.getAllChannels();
     }
+
+    /**
+     * Revalidates every channel, regardless of its age.
+     */
+    public CompletableFuture<Void> refresh() {
+        return mRepository.refresh(true);
+    }
 }
@@ -4,24 +4,21 @@ import android.app.Application;
 import androidx.annotation.NonNull;
 import androidx.lifecycle.ViewModel;
 import androidx.lifecycle.ViewModelProvider;
-import com.google.api.services.youtube.YouTube;
 
 public class ChannelViewModelFactory implements ViewModelProvider.Factory {
     private final Application mApplication;
-    private final YouTube mYoutubeService;
-    private final ConfigRepository mConfigRepository;
+    private final ChannelRepository mRepository;
 
-    public ChannelViewModelFactory(Application application, YouTube youtubeService, ConfigRepository configRepository) {
+    public ChannelViewModelFactory(Application application, ChannelRepository repository) {
         mApplication = application;
-        mYoutubeService = youtubeService;
-        mConfigRepository = configRepository;
+        mRepository = repository;
     }
 
     @NonNull
     @Override
     public <T extends ViewModel> T create(@NonNull Class<T> modelClass) {
         if (modelClass.isAssignableFrom(ChannelViewModel.class)) {
-            return (T) new ChannelViewModel(mApplication, mYoutubeService, mConfigRepository);
+            return (T) new ChannelViewModel(mApplication, mRepository);
         }
         throw new IllegalArgumentException("Unknown ViewModel class");
     }
@@ -1,23 +1,24 @@
 package com.channelplayer.cache;
 
-import android.app.Activity;
+import android.app.Application;
 import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
 import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 import android.widget.Toast;
 
-import androidx.activity.result.ActivityResultLauncher;
-import androidx.activity.result.contract.ActivityResultContracts;
-import androidx.appcompat.app.AlertDialog;
-import androidx.appcompat.app.AppCompatActivity;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
 
+import com.channelplayer.AppScheduler;
 import com.channelplayer.R;
+import com.channelplayer.TraceRecorder;
 
-import org.json.JSONArray;
 import org.json.JSONException;
-import org.json.JSONObject;
 
 import java.io.BufferedReader;
 import java.io.FileNotFoundException;
@@ -26,177 +27,169 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Map;
 import java.util.Objects;
-
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Application-scoped owner of the user's config file.
+ * The file lives behind a SAF URI, so every read and write happens in order on a serial
+ * executor of the DB_WRITE lane. Consumers get immutable ConfigSnapshots through LiveData or a future and never
+ * wait on the content resolver on the main thread.
+ * When no usable config file is known, isConfigFileRequired() turns true and an activity
+ * (see ConfigFilePicker) asks the user to create one.
+ */
 public class ConfigRepository {
     private static final String TAG = "ConfigRepository";
-    private static final String USER_CHANNELS_FILENAME = "channel_handles.json";
     private static final String PREFS_NAME = "ChannelPlayerPrefs";
     private static final String KEY_CONFIG_FILE_URI = "configFileUri";
 
-    private final AppCompatActivity activity;
+    private final Application application;
+    // Everything else waits for the first load, so it goes ahead of other writes.
+    private final Executor executor = AppScheduler.getInstance().serialExecutor(
+            AppScheduler.Lane.DB_WRITE, AppScheduler.Priority.HIGH);
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
 
-    public final List<String> channel_handles;
-    public final Map<String, String> banned_video_ids;    // Video ID to description string
+    private final MutableLiveData<ConfigSnapshot> config = new MutableLiveData<>();
+    private final MutableLiveData<Boolean> configFileRequired = new MutableLiveData<>(false);
+    private final CompletableFuture<Void> firstLoad = new CompletableFuture<>();
+    private volatile ConfigSnapshot current;
 
-    private static ConfigRepository instance;
+    public ConfigRepository(Application application) {
+        this.application = application;
+        executor.execute(this::loadConfig);
+    }
 
-    public static ConfigRepository getInstance(AppCompatActivity activity, Runnable onConfigReady) {
-        if (instance == null) {
-            instance = new ConfigRepository(activity, onConfigReady);
-        } else {
-            onConfigReady.run();
-        }
-        return instance;
+    /**
+     * The latest config. Emits every time the file is (re)loaded or changed.
+     */
+    public LiveData<ConfigSnapshot> getConfig() {
+        return config;
     }
 
-    private ConfigRepository(AppCompatActivity activity, Runnable onConfigReady) {
-        this.activity = activity;
-        channel_handles = new ArrayList<>();
-        banned_video_ids = new HashMap<>();
-        loadConfig(onConfigReady);
+    /**
+     * Completes once a config has been loaded. The value is the latest snapshot at the time
+     * the dependent stage runs, not the one that was loaded first.
+     * Until then isConfigFileRequired() is true whenever a load has failed, so the user is
+     * asked for a file instead of the app waiting silently.
+     */
+    public CompletableFuture<ConfigSnapshot> whenLoaded() {
+        return firstLoad.thenApply(ignored -> current);
     }
 
-    public List<String> getChannelHandles() {
-        return channel_handles;
+    /**
+     * The latest config, or null if it has not been loaded yet.
+     */
+    @Nullable
+    public ConfigSnapshot getCurrentConfig() {
+        return current;
     }
 
     /**
-     * Returns a map of banned video IDs to their descriptions.
+     * True while there is no readable config file and the user needs to pick a location for one.
      */
-    public Map<String, String> getBannedVideos() {
-        return banned_video_ids;
+    public LiveData<Boolean> isConfigFileRequired() {
+        return configFileRequired;
     }
 
     public void banVideo(String videoId, String description) {
-        banned_video_ids.put(videoId, description);
-        saveConfig(() -> {
+        synchronized (this) {
+            if (current == null) {
+                Log.e(TAG, "Cannot ban video " + videoId + " before the config is loaded.");
+                return;
+            }
+            publish(current.withBannedVideo(videoId, description));
+        }
+        executor.execute(() -> {
+            saveConfig();
             Log.i(TAG, "Banned video with ID: " + videoId);
         });
     }
 
-    private void saveConfig(Runnable onConfigReady) {
-        SharedPreferences prefs = activity.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        String uriString = prefs.getString(KEY_CONFIG_FILE_URI, null);
+    /**
+     * Checks on the background executor whether the file the user picked already has content.
+     */
+    public CompletableFuture<Boolean> hasContent(Uri uri) {
+        return CompletableFuture.supplyAsync(() -> {
+            try (InputStream inputStream = application.getContentResolver().openInputStream(uri)) {
+                return inputStream != null && inputStream.available() > 0;
+            } catch (IOException e) {
+                Log.e(TAG, "Error checking existing file. Assuming it's new.", e);
+                return false;
+            }
+        }, executor);
+    }
+
+    /**
+     * Makes the file the user picked the config file and loads it.
+     * @param uri The URI returned by the document picker.
+     * @param writeDefaults Whether to overwrite the file with the bundled default config first.
+     */
+    public void useConfigFile(Uri uri, boolean writeDefaults) {
+        configFileRequired.setValue(false);
+        executor.execute(() -> {
+            try {
+                application.getContentResolver().takePersistableUriPermission(uri,
+                        Intent.FLAG_GRANT_READ_URI_PERMISSION | Intent.FLAG_GRANT_WRITE_URI_PERMISSION);
+            } catch (SecurityException e) {
+                Log.w(TAG, "Could not persist access to " + uri, e);
+            }
+            if (writeDefaults && !saveDefaultConfigToUri(uri)) {
+                configFileRequired.postValue(true);
+                return;
+            }
+            saveUriToPreferences(uri);
+            loadConfig();
+        });
+    }
+
+    private synchronized void publish(ConfigSnapshot snapshot) {
+        current = snapshot;
+        config.postValue(snapshot);
+    }
 
+    private void requestConfigFile() {
+        clearUriFromPreferences();
+        configFileRequired.postValue(true);
+    }
+
+    private void saveConfig() {
+        String uriString = getSharedPreferences().getString(KEY_CONFIG_FILE_URI, null);
         if (uriString == null) {
-            Log.d(TAG, "No config file URI found in SharedPreferences. Starting copyConfig().");
-            copyConfig(() -> { loadConfig(onConfigReady); }); // Ask user to create/select the config file
+            Log.d(TAG, "No config file URI found in SharedPreferences. Asking for a config file.");
+            configFileRequired.postValue(true);
             return;
         }
 
         Uri configUri = Uri.parse(uriString);
-
-        try {
-            // Persist permission to access the URI across device reboots
-            final int takeFlags = Intent.FLAG_GRANT_READ_URI_PERMISSION;
-            activity.getContentResolver().takePersistableUriPermission(configUri, takeFlags);
-
-            // Parse the JSON using org.json
-            JSONObject jsonObject = new JSONObject();
-            jsonObject.put("channel_handles", new JSONArray(channel_handles));
-            jsonObject.put("banned_video_ids", new JSONObject(banned_video_ids));
-
-            OutputStream stream = activity.getContentResolver().openOutputStream(configUri, "w");
-            assert stream != null;
-            stream.write(jsonObject.toString(4).getBytes(StandardCharsets.UTF_8));
-            stream.close();
-
-            Log.i(TAG, "Successfully loaded " + channel_handles.size() + " channel handles from config.");
-
+        try (OutputStream stream = application.getContentResolver().openOutputStream(configUri, "wt")) {
+            if (stream == null) throw new IOException("Failed to open output stream for URI: " + configUri);
+            stream.write(current.toJson().getBytes(StandardCharsets.UTF_8));
+            Log.i(TAG, "Successfully saved " + current.channelHandles.size() + " channel handles to config.");
         } catch (SecurityException e) {
             Log.e(TAG, "Permission denied for URI. The user may have revoked access. Resetting.", e);
             // Clear the invalid URI and ask the user to select the file again.
-            clearUriFromPreferences();
-            copyConfig(() -> { loadConfig(onConfigReady); });
-            return;
+            requestConfigFile();
         } catch (FileNotFoundException e) {
             Log.e(TAG, "Config file not found at URI. It may have been moved or deleted. Resetting.", e);
-            clearUriFromPreferences();
-            copyConfig(() -> { loadConfig(onConfigReady); });
-            return;
+            requestConfigFile();
         } catch (IOException e) {
             Log.e(TAG, "Failed to write config file.", e);
         } catch (JSONException e) {
             Log.e(TAG, "Failed to generate JSON from config file.", e);
-            Toast.makeText(activity, "Error: Invalid JSON format in config file.", Toast.LENGTH_LONG).show();
+            showToast("Error: Invalid JSON format in config file.");
         }
     }
 
-
-    private void copyConfig(Runnable onReady) {
-        Intent intent = new Intent(Intent.ACTION_CREATE_DOCUMENT);
-        intent.addCategory(Intent.CATEGORY_OPENABLE);
-        intent.setType("application/json");
-        intent.putExtra(Intent.EXTRA_TITLE, USER_CHANNELS_FILENAME);
-
-        final ActivityResultLauncher<Intent> createDocumentLauncher =
-                activity.registerForActivityResult(new ActivityResultContracts.StartActivityForResult(), result -> {
-                    if (result.getResultCode() == Activity.RESULT_OK && result.getData() != null) {
-                        Uri uri = result.getData().getData();
-                        if (uri != null) {
-                            handleFileSelection(uri, onReady);
-                        }
-                    }
-                });
-
-        Log.d(TAG, "Launching file picker to select destination for config file.");
-        createDocumentLauncher.launch(intent);
-    }
-
-    /**
-     * Handles the URI returned from the file picker. It checks if the file exists
-     * and prompts the user for action if it does.
-     *
-     * @param uri The URI of the file selected by the user.
-     */
-    private void handleFileSelection(Uri uri, Runnable onReady) {
-        // Check if the file already contains data. ACTION_CREATE_DOCUMENT can return a URI to an existing file.
-        try (InputStream inputStream = activity.getContentResolver().openInputStream(uri)) {
-            if (inputStream != null && inputStream.available() > 0) {
-                // File is not empty, it might be the one we want to overwrite.
-                new AlertDialog.Builder(activity)
-                        .setTitle("File Exists")
-                        .setMessage("The file '" + USER_CHANNELS_FILENAME + "' already exists. Do you want to overwrite it with the default configuration?")
-                        .setPositiveButton("Overwrite", (dialog, which) -> {
-                            saveDefaultConfigToUri(uri);
-                            saveUriToPreferences(uri);
-                        })
-                        .setNegativeButton("Keep Existing", (dialog, which) -> {
-                            // User wants to keep the existing file, just save its URI
-                            saveUriToPreferences(uri);
-                            Toast.makeText(activity, "Using existing config file.", Toast.LENGTH_SHORT).show();
-                        })
-                        .setIcon(R.drawable.ban_video)
-                        .show();
-                return; // Wait for user decision
-            }
-        } catch (IOException e) {
-            Log.e(TAG, "Error checking existing file. Assuming it's new.", e);
-        }
-
-        // If the file is new or empty, write the default config directly.
-        saveDefaultConfigToUri(uri);
-        saveUriToPreferences(uri);
-
-        onReady.run();
-    }
-
     /**
      * Copies the default 'channel_handles.json' from raw resources to the user-selected URI.
      *
      * @param targetUri The destination URI for the config file.
+     * @return true if the file was written.
      */
-    private void saveDefaultConfigToUri(Uri targetUri) {
-        // The file com.channelplayer.R.raw.channel_handles is mentioned in your provided context
-        try {
-            InputStream inputStream = activity.getResources().openRawResource(R.raw.channel_handles);
-            OutputStream outputStream = activity.getContentResolver().openOutputStream(targetUri);
+    private boolean saveDefaultConfigToUri(Uri targetUri) {
+        try (InputStream inputStream = application.getResources().openRawResource(R.raw.channel_handles);
+             OutputStream outputStream = application.getContentResolver().openOutputStream(targetUri, "wt")) {
 
             if (outputStream == null) throw new IOException("Failed to open output stream for URI: " + targetUri);
 
@@ -205,25 +198,25 @@ public class ConfigRepository {
             while ((length = inputStream.read(buffer)) > 0) {
                 outputStream.write(buffer, 0, length);
             }
-            outputStream.close();
-            inputStream.close();
             Log.i(TAG, "Successfully copied default config to " + targetUri);
-            Toast.makeText(activity, "Configuration file saved.", Toast.LENGTH_SHORT).show();
-
+            showToast("Configuration file saved.");
+            return true;
         } catch (IOException e) {
             Log.e(TAG, "Failed to save default config file.", e);
-            Toast.makeText(activity, "Error saving configuration.", Toast.LENGTH_LONG).show();
+            showToast("Error saving configuration.");
+            return false;
         }
     }
 
+    private SharedPreferences getSharedPreferences() {
+        return application.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
     /**
      * Saves the URI of the configuration file to SharedPreferences.
      */
     private void saveUriToPreferences(Uri uri) {
-        SharedPreferences prefs = activity.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        SharedPreferences.Editor editor = prefs.edit();
-        editor.putString(KEY_CONFIG_FILE_URI, uri.toString());
-        editor.apply();
+        getSharedPreferences().edit().putString(KEY_CONFIG_FILE_URI, uri.toString()).apply();
         Log.i(TAG, "Saved config file URI to SharedPreferences: " + uri);
     }
 
@@ -231,8 +224,7 @@ public class ConfigRepository {
      * Clears the URI of the configuration file from SharedPreferences.
      */
     private void clearUriFromPreferences() {
-        SharedPreferences prefs = activity.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        prefs.edit().remove(KEY_CONFIG_FILE_URI).apply();
+        getSharedPreferences().edit().remove(KEY_CONFIG_FILE_URI).apply();
     }
 
     /**
@@ -240,7 +232,7 @@ public class ConfigRepository {
      */
     private String readTextFromUri(Uri uri) throws IOException {
         StringBuilder stringBuilder = new StringBuilder();
-        try (InputStream inputStream = activity.getContentResolver().openInputStream(uri);
+        try (InputStream inputStream = application.getContentResolver().openInputStream(uri);
              BufferedReader reader = new BufferedReader(new InputStreamReader(Objects.requireNonNull(inputStream)))) {
             String line;
             while ((line = reader.readLine()) != null) {
@@ -252,16 +244,21 @@ public class ConfigRepository {
     }
 
     /**
-     * Loads the channel handles from the user-defined configuration file.
-     * If no file has been configured, it initiates the copyConfig() flow.
+     * Loads the config from the user-defined configuration file. Runs on the executor.
+     * If no file has been configured, it asks for one through isConfigFileRequired().
      */
-    private void loadConfig(Runnable onConfigReady) {
-        SharedPreferences prefs = activity.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        String uriString = prefs.getString(KEY_CONFIG_FILE_URI, null);
+    private void loadConfig() {
+        try (TraceRecorder.Span ignored = TraceRecorder.begin("ConfigRepository.loadConfig")) {
+            readConfigFile();
+        }
+    }
+
+    private void readConfigFile() {
+        String uriString = getSharedPreferences().getString(KEY_CONFIG_FILE_URI, null);
 
         if (uriString == null) {
-            Log.d(TAG, "No config file URI found in SharedPreferences. Starting copyConfig().");
-            copyConfig(() -> { loadConfig(onConfigReady); }); // Ask user to create/select the config file
+            Log.d(TAG, "No config file URI found in SharedPreferences. Asking for a config file.");
+            configFileRequired.postValue(true);
             return;
         }
 
@@ -270,51 +267,40 @@ public class ConfigRepository {
         try {
             // Persist permission to access the URI across device reboots
             final int takeFlags = Intent.FLAG_GRANT_READ_URI_PERMISSION;
-            activity.getContentResolver().takePersistableUriPermission(configUri, takeFlags);
+            application.getContentResolver().takePersistableUriPermission(configUri, takeFlags);
 
             // Read the file content
             String jsonContent = readTextFromUri(configUri);
             if (jsonContent.isEmpty()) {
                 Log.e(TAG, "Config file is empty. Resetting.");
-                clearUriFromPreferences();
-                copyConfig(() -> { loadConfig(onConfigReady); });
+                requestConfigFile();
                 return;
             }
 
-            // Parse the JSON using org.json
-            JSONObject jsonObject = new JSONObject(jsonContent);
-
-            JSONArray handlesArray = jsonObject.getJSONArray("channel_handles");
-            for (int i = 0; i < handlesArray.length(); i++) {
-                channel_handles.add(handlesArray.getString(i));
-            }
-
-            JSONObject bannedObject = jsonObject.getJSONObject("banned_video_ids");
-            Iterator<String> keys = bannedObject.keys();
-            while (keys.hasNext()) {
-                String key = keys.next();
-                banned_video_ids.put(key, bannedObject.getString(key));
-            }
-
-            Log.i(TAG, "Successfully loaded " + channel_handles.size() + " channel handles from config.");
-            onConfigReady.run();
+            ConfigSnapshot snapshot = ConfigSnapshot.parse(jsonContent);
+            publish(snapshot);
+            firstLoad.complete(null);
+            Log.i(TAG, "Successfully loaded " + snapshot.channelHandles.size() + " channel handles from config.");
 
         } catch (SecurityException e) {
             Log.e(TAG, "Permission denied for URI. The user may have revoked access. Resetting.", e);
             // Clear the invalid URI and ask the user to select the file again.
-            clearUriFromPreferences();
-            copyConfig(() -> { loadConfig(onConfigReady); });
-            return;
+            requestConfigFile();
         } catch (FileNotFoundException e) {
             Log.e(TAG, "Config file not found at URI. It may have been moved or deleted. Resetting.", e);
-            clearUriFromPreferences();
-            copyConfig(() -> { loadConfig(onConfigReady); });
-            return;
+            requestConfigFile();
         } catch (IOException e) {
-            Log.e(TAG, "Failed to read config file.", e);
+            Log.e(TAG, "Failed to read config file. Resetting.", e);
+            showToast("Error reading configuration.");
+            requestConfigFile();
         } catch (JSONException e) {
             Log.e(TAG, "Failed to parse JSON from config file. Ensure it is well-formed.", e);
-            Toast.makeText(activity, "Error: Invalid JSON format in config file.", Toast.LENGTH_LONG).show();
+            showToast("Error: Invalid JSON format in config file.");
+            requestConfigFile();
         }
     }
+
+    private void showToast(String message) {
+        mainHandler.post(() -> Toast.makeText(application, message, Toast.LENGTH_LONG).show());
+    }
 }
@@ -0,0 +1,141 @@
+package com.channelplayer.cache;
+
+import androidx.annotation.Nullable;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable view of the user's config file.
+ * ConfigRepository replaces the whole snapshot on every change, so readers on any thread
+ * always see a consistent config without locking.
+ */
+public final class ConfigSnapshot {
+
+    private static final String DEFAULT_INGEST_RULE = "default";
+    private static final long DEFAULT_CHANNEL_TTL_HOURS = 24;
+
+    public final List<String> channelHandles;
+    public final Map<String, String> bannedVideos;    // Video ID to description string
+    // "blocked_requests": rules for RequestBlocker, or null to use its defaults.
+    @Nullable
+    public final List<String> blockedRequestRules;
+    // "ingest_rules": channel handle or ID (or "default") to the channel's IngestPolicy.
+    private final Map<String, IngestPolicy> ingestRules;
+    // "quality_policy": playback quality limits per connection type.
+    public final QualityLimits qualityLimits;
+    // "channel_ttl_hours": how long channel titles and avatars are used before they are revalidated.
+    public final long channelTtlMillis;
+
+    // The file as it was read, so keys this class does not know about survive a save.
+    private final String rawJson;
+
+    private ConfigSnapshot(List<String> channelHandles, Map<String, String> bannedVideos,
+                           @Nullable List<String> blockedRequestRules,
+                           Map<String, IngestPolicy> ingestRules, QualityLimits qualityLimits,
+                           long channelTtlMillis, String rawJson) {
+        this.channelHandles = Collections.unmodifiableList(channelHandles);
+        this.bannedVideos = Collections.unmodifiableMap(bannedVideos);
+        this.blockedRequestRules = blockedRequestRules == null ? null : Collections.unmodifiableList(blockedRequestRules);
+        this.ingestRules = Collections.unmodifiableMap(ingestRules);
+        this.qualityLimits = qualityLimits;
+        this.channelTtlMillis = channelTtlMillis;
+        this.rawJson = rawJson;
+    }
+
+    /**
+     * Parses the content of the config file.
+     * @throws JSONException if the content is not a valid config.
+     */
+    public static ConfigSnapshot parse(String jsonContent) throws JSONException {
+        JSONObject jsonObject = new JSONObject(jsonContent);
+
+        List<String> handles = new ArrayList<>();
+        JSONArray handlesArray = jsonObject.getJSONArray("channel_handles");
+        for (int i = 0; i < handlesArray.length(); i++) {
+            handles.add(handlesArray.getString(i));
+        }
+
+        Map<String, String> banned = new HashMap<>();
+        JSONObject bannedObject = jsonObject.getJSONObject("banned_video_ids");
+        Iterator<String> keys = bannedObject.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            banned.put(key, bannedObject.getString(key));
+        }
+
+        List<String> blockedRequests = null;
+        JSONArray blockedArray = jsonObject.optJSONArray("blocked_requests");
+        if (blockedArray != null) {
+            blockedRequests = new ArrayList<>();
+            for (int i = 0; i < blockedArray.length(); i++) {
+                blockedRequests.add(blockedArray.getString(i));
+            }
+        }
+
+        Map<String, IngestPolicy> ingestRules = new HashMap<>();
+        JSONObject rulesObject = jsonObject.optJSONObject("ingest_rules");
+        if (rulesObject != null) {
+            JSONObject defaultRule = rulesObject.optJSONObject(DEFAULT_INGEST_RULE);
+            IngestPolicy base = defaultRule == null
+                    ? IngestPolicy.DEFAULT : IngestPolicy.parse(defaultRule, IngestPolicy.DEFAULT);
+            ingestRules.put(DEFAULT_INGEST_RULE, base);
+            Iterator<String> channels = rulesObject.keys();
+            while (channels.hasNext()) {
+                String channel = channels.next();
+                JSONObject rule = rulesObject.optJSONObject(channel);
+                if (rule != null && !DEFAULT_INGEST_RULE.equals(channel)) {
+                    ingestRules.put(channel, IngestPolicy.parse(rule, base));
+                }
+            }
+        }
+
+        JSONObject qualityObject = jsonObject.optJSONObject("quality_policy");
+        QualityLimits qualityLimits = qualityObject == null
+                ? QualityLimits.DEFAULT : QualityLimits.parse(qualityObject);
+
+        long channelTtlMillis = jsonObject.optLong("channel_ttl_hours", DEFAULT_CHANNEL_TTL_HOURS) * 60 * 60 * 1000L;
+
+        return new ConfigSnapshot(handles, banned, blockedRequests, ingestRules, qualityLimits,
+                channelTtlMillis, jsonContent);
+    }
+
+    /**
+     * Returns a copy of this snapshot with one more banned video.
+     */
+    public ConfigSnapshot withBannedVideo(String videoId, String description) {
+        Map<String, String> banned = new HashMap<>(bannedVideos);
+        banned.put(videoId, description);
+        return new ConfigSnapshot(new ArrayList<>(channelHandles), banned, blockedRequestRules, ingestRules,
+                qualityLimits, channelTtlMillis, rawJson);
+    }
+
+    /**
+     * The ingest policy for a channel, looked up by handle first, then by ID.
+     * @param handle The channel's handle, or null if it is not known.
+     */
+    public IngestPolicy getIngestPolicy(String channelId, @Nullable String handle) {
+        IngestPolicy policy = handle != null ? ingestRules.get(handle) : null;
+        if (policy == null) policy = ingestRules.get(channelId);
+        if (policy == null) policy = ingestRules.get(DEFAULT_INGEST_RULE);
+        return policy != null ? policy : IngestPolicy.DEFAULT;
+    }
+
+    /**
+     * Serializes the snapshot back to the config file format.
+     */
+    public String toJson() throws JSONException {
+        JSONObject jsonObject = new JSONObject(rawJson);
+        jsonObject.put("channel_handles", new JSONArray(channelHandles));
+        jsonObject.put("banned_video_ids", new JSONObject(bannedVideos));
+        return jsonObject.toString(4);
+    }
+}
@@ -6,22 +6,20 @@ import androidx.annotation.NonNull;import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 
+import com.channelplayer.AppScheduler;
+
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 public class HistoryViewModel extends AndroidViewModel {
 
     private final AppDatabase db;
-    private final ExecutorService executorService;
     private final MutableLiveData<List<VideoItem>> historyVideos = new MutableLiveData<>();
     private List<HistoryInfo> rawHistoryList; // To store original HistoryInfo objects
 
     public HistoryViewModel(@NonNull Application application) {
         super(application);
         db = AppDatabase.getDatabase(application);
-        executorService = Executors.newSingleThreadExecutor();
     }
 
     public LiveData<List<VideoItem>> getHistoryVideos() {
@@ -29,7 +27,7 @@ public class HistoryViewModel extends AndroidViewModel {
     }
 
     public void fetchHistory() {
-        executorService.execute(() -> {
+        AppScheduler.getInstance().execute(AppScheduler.Lane.DB_READ, AppScheduler.Priority.HIGH, () -> {
             // 1. Get all history items, sorted by timestamp descending
             rawHistoryList = db.historyDao().getAllHistory();
 
@@ -41,7 +39,10 @@ public class HistoryViewModel extends AndroidViewModel {
             List<VideoItem> sortedVideoItems = new ArrayList<>();
             for (HistoryInfo historyInfo : rawHistoryList) {
                 VideoItem videoItem = db.videoDao().getVideoByIdSync(historyInfo.videoId);
-                sortedVideoItems.add(videoItem);
+                // The video may have been banned or its channel removed since it was watched.
+                if (videoItem != null) {
+                    sortedVideoItems.add(videoItem);
+                }
             }
             historyVideos.postValue(sortedVideoItems);
         });
@@ -63,10 +64,4 @@ public class HistoryViewModel extends AndroidViewModel {
         }
         return null;
     }
-
-    @Override
-    protected void onCleared() {
-        super.onCleared();
-        executorService.shutdown();
-    }
 }
@@ -0,0 +1,47 @@
+package com.channelplayer.cache;
+
+import org.json.JSONObject;
+
+/**
+ * Decides which search results of a channel are worth keeping: by default Shorts (anything
+ * up to a minute) and live or upcoming streams are dropped, as the player cannot handle them
+ * well. Configured per channel under "ingest_rules" in the config file, keyed by channel
+ * handle or channel ID, with "default" for all other channels:
+ *
+ *   "ingest_rules": {
+ *       "default": { "min_duration_seconds": 61, "drop_live": true },
+ *       "@SomeChannel": { "min_duration_seconds": 0 }
+ *   }
+ *
+ * Missing keys keep the value of DEFAULT.
+ */
+public final class IngestPolicy {
+
+    public static final IngestPolicy DEFAULT = new IngestPolicy(61, true);
+
+    public final int minDurationSeconds;
+    public final boolean dropLive;
+
+    public IngestPolicy(int minDurationSeconds, boolean dropLive) {
+        this.minDurationSeconds = minDurationSeconds;
+        this.dropLive = dropLive;
+    }
+
+    static IngestPolicy parse(JSONObject json, IngestPolicy base) {
+        return new IngestPolicy(
+                json.optInt("min_duration_seconds", base.minDurationSeconds),
+                json.optBoolean("drop_live", base.dropLive));
+    }
+
+    /**
+     * Whether the video may go into the cache. The live flag comes with every search result;
+     * the duration is only known once the video has been enriched, and is not held against
+     * videos whose enrichment failed.
+     */
+    public boolean accepts(VideoItem video) {
+        if (dropLive && video.liveBroadcastContent != null && !"none".equals(video.liveBroadcastContent)) {
+            return false;
+        }
+        return video.enrichedAt == 0 || video.durationSeconds >= minDurationSeconds;
+    }
+}
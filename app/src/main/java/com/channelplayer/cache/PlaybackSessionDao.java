@@ -0,0 +1,29 @@
+package com.channelplayer.cache;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.Query;
+
+@Dao
+public interface PlaybackSessionDao {
+
+    @Insert
+    void insert(PlaybackSessionInfo session);
+
+    @Query("SELECT COUNT(*) AS sessions, " +
+            "COUNT(CASE WHEN timeToFirstFrameMs >= 0 THEN 1 END) AS startedSessions, " +
+            "IFNULL(AVG(CASE WHEN timeToFirstFrameMs >= 0 THEN timeToFirstFrameMs END), 0) AS averageTimeToFirstFrameMs, " +
+            "IFNULL(MAX(timeToFirstFrameMs), 0) AS maxTimeToFirstFrameMs, " +
+            "IFNULL(SUM(rebufferCount), 0) AS rebufferCount, " +
+            "IFNULL(SUM(rebufferMs), 0) AS rebufferMs, " +
+            "IFNULL(SUM(unmuteAttempts), 0) AS unmuteAttempts, " +
+            "COUNT(CASE WHEN unmuteAttempts > 0 AND unmuted = 0 THEN 1 END) AS unmuteFailures, " +
+            "IFNULL(SUM(reloads), 0) AS reloads, " +
+            "IFNULL(SUM(errors), 0) AS errors, " +
+            "IFNULL(SUM(sessionMs), 0) AS sessionMs " +
+            "FROM playback_sessions WHERE startedAt >= :since")
+    PlaybackSummary getSummary(long since);
+
+    @Query("DELETE FROM playback_sessions WHERE startedAt < :before")
+    void deleteOlderThan(long before);
+}
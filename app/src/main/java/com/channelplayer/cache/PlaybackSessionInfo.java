@@ -0,0 +1,56 @@
+package com.channelplayer.cache;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * Quality-of-experience metrics of one playback session, i.e. one visit to the player.
+ * Times are in milliseconds.
+ */
+@Entity(tableName = "playback_sessions",
+        indices = {@Index(value = "startedAt", unique = false)}
+)
+public class PlaybackSessionInfo {
+
+    @PrimaryKey(autoGenerate = true)
+    public long id;
+
+    @NonNull
+    public String videoId;
+
+    public long startedAt;
+
+    /**
+     * From loading the watch page to the first frame played, or -1 if nothing played.
+     */
+    public long timeToFirstFrameMs;
+
+    /**
+     * Stalls after playback had started, not counting the buffering after a seek.
+     */
+    public int rebufferCount;
+    public long rebufferMs;
+
+    public int unmuteAttempts;
+    public boolean unmuted;
+
+    /**
+     * Soft reloads and page reloads together.
+     */
+    public int reloads;
+
+    /**
+     * Media errors reported by the video element.
+     */
+    public int errors;
+
+    public long sessionMs;
+
+    public PlaybackSessionInfo(@NonNull String videoId, long startedAt) {
+        this.videoId = videoId;
+        this.startedAt = startedAt;
+        this.timeToFirstFrameMs = -1;
+    }
+}
@@ -0,0 +1,20 @@
+package com.channelplayer.cache;
+
+/**
+ * Aggregate of the playback sessions in a time window, see PlaybackSessionDao.getSummary().
+ */
+public class PlaybackSummary {
+    public int sessions;
+    /** Sessions in which something played, i.e. those with a time to first frame. */
+    public int startedSessions;
+    public long averageTimeToFirstFrameMs;
+    public long maxTimeToFirstFrameMs;
+    public int rebufferCount;
+    public long rebufferMs;
+    public int unmuteAttempts;
+    /** Sessions that tried to unmute but never succeeded. */
+    public int unmuteFailures;
+    public int reloads;
+    public int errors;
+    public long sessionMs;
+}
@@ -0,0 +1,55 @@
+package com.channelplayer.cache;
+
+import org.json.JSONObject;
+
+/**
+ * The highest video quality, as a frame height in pixels, the player lets YouTube pick on each
+ * kind of connection; 0 means no limit. Configured under "quality_policy" in the config file:
+ *
+ *   "quality_policy": {
+ *       "metered_max_height": 480,
+ *       "unmetered_max_height": 720,
+ *       "weak_max_height": 360,
+ *       "battery_saver_max_height": 360
+ *   }
+ *
+ * A connection is weak when its estimated downstream bandwidth is below weak_below_kbps.
+ * Missing keys keep the value of DEFAULT.
+ */
+public final class QualityLimits {
+
+    public static final QualityLimits DEFAULT = new QualityLimits(480, 720, 360, 360, 1500);
+
+    public final int meteredMaxHeight;
+    public final int unmeteredMaxHeight;
+    public final int weakMaxHeight;
+    public final int batterySaverMaxHeight;
+    public final int weakBelowKbps;
+
+    public QualityLimits(int meteredMaxHeight, int unmeteredMaxHeight, int weakMaxHeight,
+                         int batterySaverMaxHeight, int weakBelowKbps) {
+        this.meteredMaxHeight = meteredMaxHeight;
+        this.unmeteredMaxHeight = unmeteredMaxHeight;
+        this.weakMaxHeight = weakMaxHeight;
+        this.batterySaverMaxHeight = batterySaverMaxHeight;
+        this.weakBelowKbps = weakBelowKbps;
+    }
+
+    static QualityLimits parse(JSONObject json) {
+        return new QualityLimits(
+                json.optInt("metered_max_height", DEFAULT.meteredMaxHeight),
+                json.optInt("unmetered_max_height", DEFAULT.unmeteredMaxHeight),
+                json.optInt("weak_max_height", DEFAULT.weakMaxHeight),
+                json.optInt("battery_saver_max_height", DEFAULT.batterySaverMaxHeight),
+                json.optInt("weak_below_kbps", DEFAULT.weakBelowKbps));
+    }
+
+    /**
+     * The lower of two limits, where 0 means no limit.
+     */
+    public static int min(int maxHeight, int otherMaxHeight) {
+        if (maxHeight == 0) return otherMaxHeight;
+        if (otherMaxHeight == 0) return maxHeight;
+        return Math.min(maxHeight, otherMaxHeight);
+    }
+}
@@ -0,0 +1,27 @@
+package com.channelplayer.cache;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import java.util.List;
+
+@Dao
+public interface RatingDao {
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertAll(List<RatingInfo> ratings);
+
+    @Query("SELECT * FROM ratings WHERE videoId = :videoId AND fetchedAt >= :since")
+    RatingInfo getFreshRating(String videoId, long since);
+
+    /**
+     * Returns those of the given IDs that have a rating fetched at or after 'since'.
+     */
+    @Query("SELECT videoId FROM ratings WHERE videoId IN (:videoIds) AND fetchedAt >= :since")
+    List<String> getFreshVideoIds(List<String> videoIds, long since);
+
+    @Query("DELETE FROM ratings WHERE fetchedAt < :before")
+    void deleteOlderThan(long before);
+}
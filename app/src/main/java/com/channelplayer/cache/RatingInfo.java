@@ -0,0 +1,33 @@
+package com.channelplayer.cache;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * The signed-in user's rating of a video, as last seen on YouTube or set in the player.
+ */
+@Entity(tableName = "ratings")
+public class RatingInfo {
+
+    @PrimaryKey
+    @NonNull
+    public String videoId;
+
+    /**
+     * "like", "dislike" or "none", as used by videos.rate and videos.getRating.
+     */
+    @NonNull
+    public String rating;
+
+    /**
+     * When the rating was fetched or written, used to expire it.
+     */
+    public long fetchedAt;
+
+    public RatingInfo(@NonNull String videoId, @NonNull String rating, long fetchedAt) {
+        this.videoId = videoId;
+        this.rating = rating;
+        this.fetchedAt = fetchedAt;
+    }
+}
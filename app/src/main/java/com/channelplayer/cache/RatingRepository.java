@@ -0,0 +1,132 @@
+package com.channelplayer.cache;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.channelplayer.AppScheduler;
+import com.google.api.client.googleapis.extensions.android.gms.auth.UserRecoverableAuthIOException;
+import com.google.api.services.youtube.YouTube;
+import com.google.api.services.youtube.model.VideoGetRatingResponse;
+import com.google.api.services.youtube.model.VideoRating;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Caches the user's video ratings in the "ratings" table.
+ * Ratings for a page of videos are fetched with one videos.getRating call (the API takes up
+ * to 50 IDs), so the player can show the like/dislike state without a call of its own.
+ * Ratings set through rate() are written through to the cache.
+ */
+public class RatingRepository {
+    private static final String TAG = "RatingRepository";
+
+    public static final String RATING_NONE = "none";
+
+    // Ratings only change when the user rates, which mostly happens in this app.
+    private static final long RATING_TTL_MS = 24 * 60 * 60 * 1000L;
+    private static final int MAX_IDS_PER_REQUEST = 50;
+
+    private static volatile RatingRepository INSTANCE;
+
+    private final RatingDao ratingDao;
+
+    public static RatingRepository getInstance(final Context context) {
+        if (INSTANCE == null) {
+            synchronized (RatingRepository.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new RatingRepository(context.getApplicationContext());
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    private RatingRepository(Context appContext) {
+        ratingDao = AppDatabase.getDatabase(appContext).ratingDao();
+    }
+
+    /**
+     * Returns the cached rating if it has not expired, or null.
+     */
+    @WorkerThread
+    @Nullable
+    public String getCachedRating(String videoId) {
+        RatingInfo info = ratingDao.getFreshRating(videoId, System.currentTimeMillis() - RATING_TTL_MS);
+        return info != null ? info.rating : null;
+    }
+
+    /**
+     * Fetches and caches the rating of a single video.
+     */
+    @WorkerThread
+    public String fetchRating(YouTube youtube, String videoId) throws IOException {
+        fetchAndStore(youtube, Collections.singletonList(videoId));
+        String rating = getCachedRating(videoId);
+        return rating != null ? rating : RATING_NONE;
+    }
+
+    /**
+     * Rates the video on YouTube and updates the cache.
+     */
+    @WorkerThread
+    public void rate(YouTube youtube, String videoId, String rating) throws IOException {
+        youtube.videos().rate(videoId, rating).execute();
+        ratingDao.insertAll(Collections.singletonList(
+                new RatingInfo(videoId, rating, System.currentTimeMillis())));
+    }
+
+    /**
+     * Fetches, in the background, the ratings of those videos that are not cached yet,
+     * in batches of up to 50 IDs per call.
+     */
+    public void prefetch(YouTube youtube, List<String> videoIds) {
+        if (videoIds.isEmpty()) return;
+        List<String> ids = new ArrayList<>(videoIds);
+        AppScheduler.getInstance().execute(AppScheduler.Lane.BACKGROUND_NETWORK, AppScheduler.Priority.LOW, () -> {
+            long since = System.currentTimeMillis() - RATING_TTL_MS;
+            ids.removeAll(new HashSet<>(ratingDao.getFreshVideoIds(ids, since)));
+            try {
+                for (int i = 0; i < ids.size(); i += MAX_IDS_PER_REQUEST) {
+                    fetchAndStore(youtube, ids.subList(i, Math.min(i + MAX_IDS_PER_REQUEST, ids.size())));
+                }
+            } catch (UserRecoverableAuthIOException e) {
+                // The player asks for the rating permission when it needs it.
+                Log.d(TAG, "Rating permission not granted yet; skipping prefetch.");
+            } catch (IOException e) {
+                Log.w(TAG, "Failed to prefetch ratings", e);
+            }
+            ratingDao.deleteOlderThan(since);
+        });
+    }
+
+    @WorkerThread
+    private void fetchAndStore(YouTube youtube, List<String> videoIds) throws IOException {
+        VideoGetRatingResponse response = youtube.videos().getRating(videoIds).execute();
+        long now = System.currentTimeMillis();
+
+        List<RatingInfo> ratings = new ArrayList<>();
+        Set<String> rated = new HashSet<>();
+        if (response.getItems() != null) {
+            for (VideoRating item : response.getItems()) {
+                ratings.add(new RatingInfo(item.getVideoId(), item.getRating(), now));
+                rated.add(item.getVideoId());
+            }
+        }
+        // Videos missing from the response are stored as unrated, so they are not asked again.
+        for (String videoId : videoIds) {
+            if (!rated.contains(videoId)) {
+                ratings.add(new RatingInfo(videoId, RATING_NONE, now));
+            }
+        }
+        ratingDao.insertAll(ratings);
+        Log.d(TAG, "Fetched " + ratings.size() + " ratings in one call.");
+    }
+}
@@ -5,6 +5,7 @@ import androidx.room.Dao;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.Update;
 
 import java.util.List;
 
@@ -57,6 +58,9 @@ public interface VideoDao {
     @Query("DELETE FROM videos WHERE videoId = :videoId")
     void deleteSingleVideo(String videoId);
 
+    @Query("DELETE FROM videos WHERE videoId IN (:videoIds)")
+    void deleteVideos(List<String> videoIds);
+
     /**
      * Counts the number of videos cached for a specific channel.
      * @param channelId The ID of the channel.
@@ -65,6 +69,21 @@ public interface VideoDao {
     @Query("SELECT COUNT(videoId) FROM videos WHERE channelId = :channelId")
     int getVideoCountForChannel(String channelId);
 
+    /**
+     * Gets the publish time of the channel's newest cached video, which is stored in fetchedAt.
+     * @param channelId The ID of the channel.
+     * @return The time in milliseconds, or 0 if the channel has no cached videos.
+     */
+    @Query("SELECT IFNULL(MAX(fetchedAt), 0) FROM videos WHERE channelId = :channelId")
+    long getNewestPublishedAt(String channelId);
+
+    /**
+     * Returns those of the given video IDs that are cached.
+     * @param videoIds Up to 999 video IDs.
+     */
+    @Query("SELECT videoId FROM videos WHERE videoId IN (:videoIds)")
+    List<String> getExistingVideoIds(List<String> videoIds);
+
     /**
      * Updates the description of a specific video, identified by its ID.
      * @param videoId The ID of the video to update.
@@ -72,4 +91,25 @@ public interface VideoDao {
      */
     @Query("UPDATE videos SET description = :description WHERE videoId = :videoId")
     void updateDescription(String videoId, String description);
+
+    /**
+     * Gets the videos with the given IDs, for use in background threads.
+     * @param videoIds Up to 999 video IDs.
+     */
+    @Query("SELECT * FROM videos WHERE videoId IN (:videoIds)")
+    List<VideoItem> getVideosByIdsSync(List<String> videoIds);
+
+    /**
+     * Gets the IDs of a channel's videos that have not been enriched by videos.list yet.
+     * @param channelId The ID of the channel.
+     */
+    @Query("SELECT videoId FROM videos WHERE channelId = :channelId AND enrichedAt = 0")
+    List<String> getUnenrichedVideoIds(String channelId);
+
+    /**
+     * Updates existing videos, matched by their ID.
+     * @param videos The videos to update.
+     */
+    @Update
+    void updateAll(List<VideoItem> videos);
 }
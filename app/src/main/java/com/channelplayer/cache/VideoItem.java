@@ -1,6 +1,7 @@
 package com.channelplayer.cache;
 
 import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
 import androidx.room.Entity;
 import androidx.room.Index;
 import androidx.room.PrimaryKey;
@@ -42,6 +43,29 @@ public class VideoItem {
      */
     public long fetchedAt;
 
+    /**
+     * The video's length in seconds from videos.list contentDetails, or 0 while not enriched
+     * and for live streams.
+     */
+    @ColumnInfo(defaultValue = "0")
+    public int durationSeconds;
+
+    /**
+     * "none", "upcoming" or "live" from the video's snippet, or null while not enriched.
+     */
+    public String liveBroadcastContent;
+
+    /**
+     * The full description text from the video's snippet, or null while not enriched.
+     */
+    public String details;
+
+    /**
+     * When the video was enriched by videos.list, or 0 if it has not been yet.
+     */
+    @ColumnInfo(defaultValue = "0")
+    public long enrichedAt;
+
     /**
      * Default constructor required for Room.
      */
@@ -69,4 +93,15 @@ public class VideoItem {
         this.thumbnailUrl = thumbnailUrl;
         this.fetchedAt = publishedAt;
     }
+
+    /**
+     * The text the player shows under the video: the title, followed by the full description
+     * once the video has been enriched.
+     */
+    public String getDisplayDescription() {
+        if (details == null || details.isEmpty()) {
+            return description;
+        }
+        return description + "\n\n" + details;
+    }
 }
@@ -3,36 +3,80 @@ package com.channelplayer.cache;
 import android.app.Application;
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.util.Log;
 
 import androidx.lifecycle.LiveData;
 
+import com.channelplayer.AppScheduler;
+import com.channelplayer.TraceRecorder;
+import com.google.api.client.http.HttpResponseException;
+import com.google.api.client.util.DateTime;
 import com.google.api.services.youtube.YouTube;
 import com.google.api.services.youtube.model.SearchListResponse;
 import com.google.api.services.youtube.model.SearchResult;
+import com.google.api.services.youtube.model.Video;
+import com.google.api.services.youtube.model.VideoListResponse;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
+/**
+ * The videos of each channel, cached in the "videos" table and paged in from the YouTube API.
+ * One instance per signed-in account is held by ChannelPlayerApplication and shared by all
+ * screens, so going back and forth between channels reuses the per-channel LiveData, the
+ * page tokens and the knowledge of which fetches are already under way.
+ */
 public class VideoRepository {
     private final YouTube youtubeService;
     private final VideoDao videoDao;
+    private final ChannelDao channelDao;
     private final Executor executor;
     private final SharedPreferences sharedPreferences;
     private final ConfigRepository configRepository;
+    private final Map<String, LiveData<List<VideoItem>>> videoLists = new ConcurrentHashMap<>();
+    // Fetches queued or running, by operation and channel; another request for them is dropped.
+    private final Set<String> fetchesInFlight = ConcurrentHashMap.newKeySet();
 
+    private static final String TAG = "VideoRepository";
+
+    // Operations of runPageFetch. Different operations for a channel queue up behind each
+    // other on the serial executor instead of dropping one another.
+    private static final String FETCH_INITIAL = "initial:";
+    private static final String FETCH_NEXT_PAGE = "next_page:";
 
     // Preference key for storing the next page token
     private static final String PREF_NEXT_PAGE_TOKEN = "next_page_token_";
+    // When the channel was last checked for new uploads
+    private static final String PREF_LAST_TOP_UP = "last_top_up_";
+    // Where a top-up that hit MAX_TOP_UP_PAGES stopped, and the publishedAfter it used
+    private static final String PREF_TOP_UP_PAGE_TOKEN = "top_up_page_token_";
+    private static final String PREF_TOP_UP_AFTER = "top_up_after_";
+    private static final long TOP_UP_INTERVAL_MS = 15 * 60 * 1000L;
+    // Only reached after a very long time away from a busy channel; bounds the quota spent.
+    private static final int MAX_TOP_UP_PAGES = 10;
+    private static final int MAX_IDS_PER_REQUEST = 50;
+    // Stays well below SQLite's limit on bound parameters.
+    private static final int SQL_BATCH_SIZE = 500;
+    private static final int MAX_SKIPPED_PAGES = 3;
 
     public VideoRepository(Application application, YouTube youtubeService, ConfigRepository configRepository) {
         AppDatabase db = AppDatabase.getDatabase(application);
         this.videoDao = db.videoDao();
-        this.executor = Executors.newSingleThreadExecutor();
+        this.channelDao = db.channelDao();
+        this.executor = AppScheduler.getInstance().serialExecutor(
+                AppScheduler.Lane.UI_NETWORK, AppScheduler.Priority.NORMAL);
         this.youtubeService = youtubeService;
         this.configRepository = configRepository;
 
@@ -41,24 +85,11 @@ public class VideoRepository {
     }
 
     /**
-     * Gets the video list from the database.
-     * If the database is empty for this channel, it fetches the FIRST page.
+     * Gets the video list from the database, the same LiveData for every screen.
+     * Fetching is left to fetchInitialVideos and fetchNextVideoPage.
      */
     public LiveData<List<VideoItem>> getVideoList(String channelId) {
-        // 1. Immediately return LiveData from the database.
-        LiveData<List<VideoItem>> databaseData = videoDao.getVideosForChannel(channelId);
-
-        // 2. Trigger a background task to refresh data only if the cache is empty.
-        // Subsequent pages will be loaded explicitly by calling fetchNextVideoPage.
-        executor.execute(() -> {
-            int videoCount = videoDao.getVideoCountForChannel(channelId); // Add this method to your DAO
-            if (videoCount == 0) {
-                // Fetch the first page if the cache is empty
-                fetchAndCacheVideos(channelId, null);
-            }
-        });
-
-        return databaseData;
+        return videoLists.computeIfAbsent(channelId, videoDao::getVideosForChannel);
     }
 
     /**
@@ -66,7 +97,7 @@ public class VideoRepository {
      * This should be called when the user scrolls to the end of the list.
      */
     public void fetchNextVideoPage(String channelId) {
-        executor.execute(() -> {
+        runPageFetch(FETCH_NEXT_PAGE, channelId, () -> {
             // Get the token for the next page from SharedPreferences
             String nextPageToken = sharedPreferences.getString(PREF_NEXT_PAGE_TOKEN + channelId, null);
 
@@ -85,11 +116,48 @@ public class VideoRepository {
         });
     }
 
+    /**
+     * Runs the task on the repository executor, but not before the config is loaded:
+     * ingesting videos requires the list of banned IDs.
+     * @return Completes when the task has run or failed.
+     */
+    private CompletableFuture<Void> runWhenConfigLoaded(Runnable task) {
+        return configRepository.whenLoaded().thenRunAsync(task, executor);
+    }
+
+    /**
+     * Like runWhenConfigLoaded(), but drops the task if the same operation for the channel is
+     * already queued or running; scrolling to the end asks for the next page many times.
+     * A next page asked for during a long top-up runs after it.
+     */
+    private void runPageFetch(String operation, String channelId, Runnable task) {
+        String key = operation + channelId;
+        if (!fetchesInFlight.add(key)) {
+            Log.d(TAG, "A fetch of " + key + " is already under way.");
+            return;
+        }
+        // Cleared however the fetch ends, including when it never gets to run.
+        runWhenConfigLoaded(task).whenComplete((ignored, error) -> {
+            fetchesInFlight.remove(key);
+            if (error != null) {
+                Log.e(TAG, "Page fetch for " + channelId + " failed", error);
+            }
+        });
+    }
+
     /**
      * Private helper method to perform the network request and cache the results.
      */
     private void fetchAndCacheVideos(String channelId, String pageToken) {
-        try {
+        fetchAndCacheVideos(channelId, pageToken, MAX_SKIPPED_PAGES);
+    }
+
+    /**
+     * @param skippablePages How many more pages may be fetched right away if every video on
+     *                       this one is dropped, so such a page does not leave the list stuck.
+     */
+    private void fetchAndCacheVideos(String channelId, String pageToken, int skippablePages) {
+        try (TraceRecorder.Span ignored = TraceRecorder.begin("VideoRepository.fetchAndCacheVideos")) {
             YouTube.Search.List request = youtubeService.search()
                     .list(Collections.singletonList("snippet"))
                     .setChannelId(channelId)
@@ -105,40 +173,321 @@ public class VideoRepository {
             SearchListResponse response = request.execute();
 
             if (response != null) {
-                List<VideoItem> freshVideos = new ArrayList<>();
-                Map<String, String> banned_video = configRepository.getBannedVideos();
-                for (SearchResult item : response.getItems()) {
-                    if (banned_video.containsKey(item.getId().getVideoId()))
-                        continue;
-                    freshVideos.add(new VideoItem(
-                            item.getId().getVideoId(),
-                            channelId, // Store channelId with the item
-                            item.getSnippet().getTitle(),
-                            item.getSnippet().getThumbnails().getDefault().getUrl(),
-                            item.getSnippet().getPublishedAt().getValue()
-                    ));
-                }
+                List<VideoItem> freshVideos = toVideoItems(channelId, response, Collections.emptySet());
+
+                // A page can contain videos we already have; keep what enrichment found for them.
+                keepEnrichment(freshVideos);
 
-                // Insert the new videos. This will automatically update the LiveData.
-                videoDao.insertAll(freshVideos);
+                IngestPolicy policy = getIngestPolicy(channelId);
+                List<VideoItem> acceptedVideos = ingestVideos(channelId, policy, freshVideos);
 
                 // Get the token for the *next* page and save it.
                 // It will be null if this is the last page.
                 String nextToken = response.getNextPageToken();
-                sharedPreferences.edit()
-                        .putString(PREF_NEXT_PAGE_TOKEN + channelId, nextToken)
-                        .apply();
+                SharedPreferences.Editor editor = sharedPreferences.edit()
+                        .putString(PREF_NEXT_PAGE_TOKEN + channelId, nextToken);
+                if (pageToken == null) {
+                    // The first page has the newest uploads; no top-up needed for a while.
+                    editor.putLong(PREF_LAST_TOP_UP + channelId, System.currentTimeMillis())
+                            .remove(PREF_TOP_UP_PAGE_TOKEN + channelId)
+                            .remove(PREF_TOP_UP_AFTER + channelId);
+                }
+                editor.apply();
+
+                // Videos cached before enrichment existed, or whose enrichment failed.
+                enrichStoredVideos(channelId, policy);
+
+                if (acceptedVideos.isEmpty() && nextToken != null && skippablePages > 0) {
+                    fetchAndCacheVideos(channelId, nextToken, skippablePages - 1);
+                }
             }
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * Converts a page of search results, leaving out banned videos and those in 'skipIds'.
+     */
+    private List<VideoItem> toVideoItems(String channelId, SearchListResponse response, Set<String> skipIds) {
+        List<VideoItem> videos = new ArrayList<>();
+        Map<String, String> banned_video = configRepository.getCurrentConfig().bannedVideos;
+        for (SearchResult item : response.getItems()) {
+            String videoId = item.getId().getVideoId();
+            if (banned_video.containsKey(videoId) || skipIds.contains(videoId))
+                continue;
+            VideoItem video = new VideoItem(
+                    videoId,
+                    channelId, // Store channelId with the item
+                    item.getSnippet().getTitle(),
+                    item.getSnippet().getThumbnails().getDefault().getUrl(),
+                    item.getSnippet().getPublishedAt().getValue()
+            );
+            video.liveBroadcastContent = item.getSnippet().getLiveBroadcastContent();
+            videos.add(video);
+        }
+        return videos;
+    }
+
+    /**
+     * Enriches the videos, drops those the policy does not accept, and inserts the rest.
+     * If enrichment fails the videos are inserted without it; enrichStoredVideos retries later.
+     * @return The inserted videos.
+     */
+    private List<VideoItem> ingestVideos(String channelId, IngestPolicy policy, List<VideoItem> freshVideos) {
+        // Live streams are known from the search result already; only enrich the rest,
+        // then drop what is too short.
+        List<VideoItem> acceptedVideos = applyPolicy(policy, freshVideos, null);
+        try {
+            enrichVideos(acceptedVideos);
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to enrich videos of " + channelId + "; keeping them unenriched.", e);
+        }
+        acceptedVideos = applyPolicy(policy, acceptedVideos, null);
+        Log.d(TAG, "Keeping " + acceptedVideos.size() + " of " + freshVideos.size() + " videos of " + channelId);
+
+        // Insert the new videos. This will automatically update the LiveData.
+        videoDao.insertAll(acceptedVideos);
+        return acceptedVideos;
+    }
+
+    private IngestPolicy getIngestPolicy(String channelId) {
+        ChannelInfo channel = channelDao.getChannelByIdSync(channelId);
+        return configRepository.getCurrentConfig().getIngestPolicy(channelId, channel != null ? channel.handle : null);
+    }
+
+    /**
+     * Returns the videos the policy accepts and adds the IDs of the others to 'dropped'.
+     */
+    private static List<VideoItem> applyPolicy(IngestPolicy policy, List<VideoItem> videos, List<String> dropped) {
+        List<VideoItem> accepted = new ArrayList<>();
+        for (VideoItem video : videos) {
+            if (policy.accepts(video)) {
+                accepted.add(video);
+            } else if (dropped != null) {
+                dropped.add(video.videoId);
+            }
+        }
+        return accepted;
+    }
+
+    private void keepEnrichment(List<VideoItem> freshVideos) {
+        List<String> ids = new ArrayList<>();
+        for (VideoItem video : freshVideos) {
+            ids.add(video.videoId);
+        }
+        Map<String, VideoItem> cached = new HashMap<>();
+        for (VideoItem video : videoDao.getVideosByIdsSync(ids)) {
+            cached.put(video.videoId, video);
+        }
+        for (VideoItem video : freshVideos) {
+            VideoItem old = cached.get(video.videoId);
+            if (old != null && old.enrichedAt != 0) {
+                video.durationSeconds = old.durationSeconds;
+                video.liveBroadcastContent = old.liveBroadcastContent;
+                video.details = old.details;
+                video.enrichedAt = old.enrichedAt;
+            }
+        }
+    }
+
+    /**
+     * Enriches the channel's cached videos that have not been enriched yet, then removes those
+     * the ingest policy drops.
+     */
+    private void enrichStoredVideos(String channelId, IngestPolicy policy) throws IOException {
+        List<String> ids = videoDao.getUnenrichedVideoIds(channelId);
+        if (ids.isEmpty()) return;
+
+        List<VideoItem> videos = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += SQL_BATCH_SIZE) {
+            videos.addAll(videoDao.getVideosByIdsSync(ids.subList(i, Math.min(i + SQL_BATCH_SIZE, ids.size()))));
+        }
+        enrichVideos(videos);
+
+        List<String> dropped = new ArrayList<>();
+        List<VideoItem> accepted = applyPolicy(policy, videos, dropped);
+        videoDao.updateAll(accepted);
+        if (!dropped.isEmpty()) {
+            for (int i = 0; i < dropped.size(); i += SQL_BATCH_SIZE) {
+                videoDao.deleteVideos(dropped.subList(i, Math.min(i + SQL_BATCH_SIZE, dropped.size())));
+            }
+            Log.d(TAG, "Removed " + dropped.size() + " cached videos of " + channelId + " by ingest policy.");
+        }
+    }
+
+    /**
+     * Fills in duration, live status and full description for those of the videos that do not
+     * have them yet. search.list does not return these, so they come from videos.list,
+     * which takes up to 50 IDs per call. Only the given objects are changed, not the database.
+     */
+    private void enrichVideos(List<VideoItem> videos) throws IOException {
+        List<VideoItem> pending = new ArrayList<>();
+        for (VideoItem video : videos) {
+            if (video.enrichedAt == 0) pending.add(video);
+        }
+
+        for (int i = 0; i < pending.size(); i += MAX_IDS_PER_REQUEST) {
+            List<VideoItem> batch = pending.subList(i, Math.min(i + MAX_IDS_PER_REQUEST, pending.size()));
+            List<String> ids = new ArrayList<>();
+            for (VideoItem item : batch) {
+                ids.add(item.videoId);
+            }
+            VideoListResponse response = youtubeService.videos()
+                    .list(Arrays.asList("contentDetails", "snippet"))
+                    .setId(ids)
+                    .setMaxResults((long) MAX_IDS_PER_REQUEST)
+                    .execute();
+
+            Map<String, Video> found = new HashMap<>();
+            if (response.getItems() != null) {
+                for (Video video : response.getItems()) {
+                    found.put(video.getId(), video);
+                }
+            }
+
+            long now = System.currentTimeMillis();
+            for (VideoItem item : batch) {
+                Video video = found.get(item.videoId);
+                // Videos that were removed or made private are marked too, so they are not asked again.
+                item.enrichedAt = now;
+                if (video == null) continue;
+                if (video.getContentDetails() != null) {
+                    item.durationSeconds = parseDurationSeconds(video.getContentDetails().getDuration());
+                }
+                if (video.getSnippet() != null) {
+                    item.liveBroadcastContent = video.getSnippet().getLiveBroadcastContent();
+                    item.details = video.getSnippet().getDescription();
+                }
+            }
+            Log.d(TAG, "Enriched " + batch.size() + " videos in one call.");
+        }
+    }
+
+    /**
+     * Converts an ISO 8601 duration such as "PT1H2M3S" to seconds; 0 if it cannot be parsed.
+     */
+    private static int parseDurationSeconds(String isoDuration) {
+        if (isoDuration == null) return 0;
+        try {
+            return (int) Duration.parse(isoDuration).getSeconds();
+        } catch (DateTimeParseException e) {
+            Log.w(TAG, "Unexpected video duration: " + isoDuration);
+            return 0;
+        }
+    }
+
+    /**
+     * To be called when a channel is opened. Fetches the first page if nothing is cached yet;
+     * otherwise, if the last top-up is older than TOP_UP_INTERVAL_MS, fetches only the uploads
+     * newer than the newest cached video. Older videos are paged in by fetchNextVideoPage.
+     */
     public void fetchInitialVideos(String channelId) {
-        // You can reuse the existing fetch logic or create a specific one
-        // that checks if the cache is empty or stale before fetching.
-        // For simplicity, we can just call the next page fetch logic.
-        fetchNextVideoPage(channelId);
+        runPageFetch(FETCH_INITIAL, channelId, () -> {
+            if (videoDao.getVideoCountForChannel(channelId) == 0) {
+                fetchAndCacheVideos(channelId, null);
+                return;
+            }
+            long lastTopUp = sharedPreferences.getLong(PREF_LAST_TOP_UP + channelId, 0);
+            if (System.currentTimeMillis() - lastTopUp >= TOP_UP_INTERVAL_MS) {
+                topUpVideos(channelId);
+            }
+        });
+    }
+
+    /**
+     * Inserts the channel's uploads published since its newest cached video. Pages are fetched
+     * newest first and the first page that reaches a cached video is the last one, so only the
+     * delta is downloaded.
+     * If MAX_TOP_UP_PAGES are fetched without reaching a cached video, the position is saved
+     * and the next top-up continues from it, so no gap is left between the new uploads and the
+     * cached ones. The channel only counts as topped up once the delta has been fetched entirely.
+     */
+    private void topUpVideos(String channelId) {
+        try (TraceRecorder.Span ignored = TraceRecorder.begin("VideoRepository.topUpVideos")) {
+            String savedToken = sharedPreferences.getString(PREF_TOP_UP_PAGE_TOKEN + channelId, null);
+            if (savedToken != null) {
+                try {
+                    topUpVideos(channelId, savedToken,
+                            sharedPreferences.getLong(PREF_TOP_UP_AFTER + channelId, 0), true);
+                    return;
+                } catch (HttpResponseException e) {
+                    // 400 is an expired or invalid page token. Others, e.g. 403 for quota, are
+                    // not about the token, which is kept for the next try.
+                    if (e.getStatusCode() != 400) throw e;
+                    Log.w(TAG, "Saved top-up position of " + channelId + " was rejected; starting over."
+                            + " Older uploads it did not reach are left to scrolling.", e);
+                    sharedPreferences.edit()
+                            .remove(PREF_TOP_UP_PAGE_TOKEN + channelId)
+                            .remove(PREF_TOP_UP_AFTER + channelId)
+                            .apply();
+                }
+            }
+            topUpVideos(channelId, null, videoDao.getNewestPublishedAt(channelId), false);
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to top up videos of " + channelId, e);
+        }
+    }
+
+    /**
+     * @param pageToken Where to start; null for the newest uploads.
+     * @param newest The publishedAfter bound, kept the same across resumed top-ups.
+     * @param resumed Whether this continues a top-up that hit MAX_TOP_UP_PAGES.
+     */
+    private void topUpVideos(String channelId, String pageToken, long newest, boolean resumed)
+            throws IOException {
+        IngestPolicy policy = getIngestPolicy(channelId);
+        boolean reachedCache = false;
+        int added = 0;
+        for (int page = 0; page < MAX_TOP_UP_PAGES; page++) {
+            YouTube.Search.List request = youtubeService.search()
+                    .list(Collections.singletonList("snippet"))
+                    .setChannelId(channelId)
+                    .setType(Collections.singletonList("video"))
+                    .setOrder("date")
+                    // Inclusive, so the newest cached video comes back and marks the overlap.
+                    .setPublishedAfter(new DateTime(newest).toStringRfc3339())
+                    .setMaxResults(50L);
+            if (pageToken != null) {
+                request.setPageToken(pageToken);
+            }
+            SearchListResponse response = request.execute();
+            if (response == null || response.getItems() == null || response.getItems().isEmpty()) {
+                reachedCache = true;
+                break;
+            }
+
+            List<String> ids = new ArrayList<>();
+            for (SearchResult item : response.getItems()) {
+                ids.add(item.getId().getVideoId());
+            }
+            Set<String> cached = new HashSet<>(videoDao.getExistingVideoIds(ids));
+            added += ingestVideos(channelId, policy, toVideoItems(channelId, response, cached)).size();
+
+            pageToken = response.getNextPageToken();
+            if (!cached.isEmpty() || pageToken == null) {
+                reachedCache = true;
+                break;
+            }
+        }
+
+        SharedPreferences.Editor editor = sharedPreferences.edit();
+        if (reachedCache) {
+            editor.remove(PREF_TOP_UP_PAGE_TOKEN + channelId)
+                    .remove(PREF_TOP_UP_AFTER + channelId);
+            // A resumed top-up has closed its gap, but uploads newer than where it
+            // started have not been looked for yet; leave that to the next top-up.
+            if (!resumed) {
+                editor.putLong(PREF_LAST_TOP_UP + channelId, System.currentTimeMillis());
+            }
+            Log.d(TAG, "Topped up " + channelId + " with " + added + " new videos.");
+        } else {
+            editor.putString(PREF_TOP_UP_PAGE_TOKEN + channelId, pageToken)
+                    .putLong(PREF_TOP_UP_AFTER + channelId, newest);
+            Log.w(TAG, "Topped up " + channelId + " with " + added + " new videos, but "
+                    + MAX_TOP_UP_PAGES + " pages did not reach the cache; continuing next time.");
+        }
+        editor.apply();
     }
 
     public void banVideo(String videoId) {
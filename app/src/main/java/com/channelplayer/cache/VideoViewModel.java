@@ -9,8 +9,6 @@ import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MediatorLiveData;
 import androidx.lifecycle.MutableLiveData;
 
-import com.google.api.services.youtube.YouTube;
-
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -23,9 +21,9 @@ public class VideoViewModel extends AndroidViewModel {
     private LiveData<List<VideoItem>> sourceVideos = null;
 
 
-    public VideoViewModel(@NonNull Application application, @NonNull YouTube youtubeService, @NonNull ConfigRepository configRepository) {
+    public VideoViewModel(@NonNull Application application, @NonNull VideoRepository repository) {
         super(application);
-        repository = new VideoRepository(application, youtubeService, configRepository);
+        this.repository = repository;
     }
 
     public LiveData<List<VideoItem>> getFilteredVideoList(String channelId) {
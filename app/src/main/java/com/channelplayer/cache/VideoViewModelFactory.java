@@ -4,7 +4,6 @@ import android.app.Application;
 import androidx.annotation.NonNull;
 import androidx.lifecycle.ViewModel;
 import androidx.lifecycle.ViewModelProvider;
-import com.google.api.services.youtube.YouTube;
 
 /**
  * A ViewModelProvider.Factory that is responsible for creating instances of VideoViewModel.
@@ -12,19 +11,17 @@ import com.google.api.services.youtube.YouTube;
  */
 public class VideoViewModelFactory implements ViewModelProvider.Factory {
     private final Application mApplication;
-    private final YouTube mYoutubeService;
-    private final ConfigRepository mConfigRepository;
+    private final VideoRepository mRepository;
 
 
     /**
      * Constructor for the factory.
      * @param application The application context.
-     * @param youtubeService An initialized YouTube service instance.
+     * @param repository The shared repository, see ChannelPlayerApplication.getVideoRepository().
      */
-    public VideoViewModelFactory(Application application, YouTube youtubeService, ConfigRepository configRepository) {
+    public VideoViewModelFactory(Application application, VideoRepository repository) {
         mApplication = application;
-        mYoutubeService = youtubeService;
-        mConfigRepository = configRepository;
+        mRepository = repository;
     }
 
     @NonNull
@@ -33,7 +30,7 @@ public class VideoViewModelFactory implements ViewModelProvider.Factory {
         // Check if the requested ViewModel is of type VideoViewModel
         if (modelClass.isAssignableFrom(VideoViewModel.class)) {
             // If it is, create and return a new instance, passing the required dependencies.
-            return (T) new VideoViewModel(mApplication, mYoutubeService, mConfigRepository);
+            return (T) new VideoViewModel(mApplication, mRepository);
         }
         // If the ViewModel class is unknown, throw an exception.
         throw new IllegalArgumentException("Unknown ViewModel class");